@@ -0,0 +1,158 @@
+import java.util.*;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A small benchmark harness in the spirit of JMH, for a tree without a build tool. Each
+ * benchmark runs for a number of timed warmup and measurement iterations, once for every
+ * combination of parameter values. Results are reported as throughput (ops/s) and/or
+ * average time (ms/op) with the 99.9% confidence interval.
+ *
+ * <p>Options: {@code -wi n} warmup iterations, {@code -i n} measurement iterations,
+ * {@code -r ms} time per iteration, {@code -bm thrpt|avgt|all}, {@code -p name=v1,v2}
+ * to override a parameter, and a regex that selects benchmarks by name.
+ */
+public final class Bench {
+
+    /** One invocation of the code under test. The result is consumed so it is not optimized away. */
+    public interface Op {
+        Object run() throws Exception;
+    }
+
+    private static final class Case {
+        final String name;
+        final Function<Map<String, String>, Op> setup;
+
+        Case(String name, Function<Map<String, String>, Op> setup) {
+            this.name = name;
+            this.setup = setup;
+        }
+    }
+
+    // Student's t quantiles (two-sided 99.9%) for 1..30 degrees of freedom.
+    private static final double[] T_999 = {
+        636.62, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+        3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646
+    };
+
+    private final String title;
+    private final Map<String, List<String>> params = new LinkedHashMap<>();
+    private final List<Case> cases = new ArrayList<>();
+    private volatile int blackhole;
+
+    public Bench(String title) {
+        this.title = title;
+    }
+
+    /** Declares a parameter and its default values. */
+    public Bench param(String name, String... values) {
+        params.put(name, List.of(values));
+        return this;
+    }
+
+    /** Adds a benchmark. {@code setup} runs untimed once per parameter combination. */
+    public Bench add(String name, Function<Map<String, String>, Op> setup) {
+        cases.add(new Case(name, setup));
+        return this;
+    }
+
+    public void run(String[] args) throws Exception {
+        int warmups = 3, iterations = 5;
+        long iterationMs = 1000;
+        String mode = "all";
+        Pattern filter = Pattern.compile(".*");
+        Map<String, List<String>> values = new LinkedHashMap<>(params);
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-wi" -> warmups = Integer.parseInt(args[++i]);
+                case "-i" -> iterations = Integer.parseInt(args[++i]);
+                case "-r" -> iterationMs = Long.parseLong(args[++i]);
+                case "-bm" -> mode = args[++i];
+                case "-p" -> {
+                    String[] kv = args[++i].split("=", 2);
+                    if (!values.containsKey(kv[0])) throw new IllegalArgumentException("Unknown parameter " + kv[0]);
+                    values.put(kv[0], List.of(kv[1].split(",")));
+                }
+                default -> filter = Pattern.compile(args[i]);
+            }
+        }
+        boolean thrpt = mode.equals("thrpt") || mode.equals("all");
+        boolean avgt = mode.equals("avgt") || mode.equals("all");
+        if (!thrpt && !avgt) throw new IllegalArgumentException("Unknown mode " + mode);
+
+        System.out.println("# " + title + ": " + warmups + " warmup and " + iterations
+                + " measurement iterations of " + iterationMs + " ms");
+        StringBuilder header = new StringBuilder(String.format("%-32s", "Benchmark"));
+        for (String p : values.keySet()) header.append(String.format(" %10s", "(" + p + ")"));
+        System.out.println(header.append(String.format("  %5s %3s %14s   %10s  %s", "Mode", "Cnt", "Score", "Error", "Units")));
+
+        for (Case c : cases) {
+            if (!filter.matcher(c.name).find()) continue;
+            for (Map<String, String> combo : combinations(values)) {
+                Op op = c.setup.apply(combo);
+                for (int i = 0; i < warmups; i++) iteration(op, iterationMs);
+
+                double[] nanosPerOp = new double[iterations];
+                for (int i = 0; i < iterations; i++) nanosPerOp[i] = iteration(op, iterationMs);
+
+                StringBuilder row = new StringBuilder(String.format("%-32s", c.name));
+                for (String v : combo.values()) row.append(String.format(" %10s", v));
+                if (thrpt) report(row, "thrpt", nanosPerOp, x -> 1e9 / x, "ops/s");
+                if (avgt) report(row, "avgt", nanosPerOp, x -> x / 1e6, "ms/op");
+            }
+        }
+        if (blackhole == 42) System.out.println();
+    }
+
+    /** Runs {@code op} repeatedly for about {@code ms} and returns the mean time per call. */
+    private double iteration(Op op, long ms) throws Exception {
+        long deadline = System.nanoTime() + ms * 1_000_000;
+        long ops = 0;
+        long start = System.nanoTime();
+        long now;
+        int sink = 0;
+        do {
+            Object result = op.run();
+            sink += result == null ? 0 : System.identityHashCode(result);
+            ops++;
+        } while ((now = System.nanoTime()) < deadline);
+        blackhole += sink;
+        return (double) (now - start) / ops;
+    }
+
+    private static void report(StringBuilder row, String mode, double[] nanosPerOp,
+                               DoubleUnaryOperator unit, String units) {
+        int n = nanosPerOp.length;
+        double mean = 0;
+        for (double x : nanosPerOp) mean += unit.applyAsDouble(x);
+        mean /= n;
+        double error = Double.NaN;
+        if (n > 1) {
+            double var = 0;
+            for (double x : nanosPerOp) var += Math.pow(unit.applyAsDouble(x) - mean, 2);
+            double t = T_999[Math.min(n - 1, T_999.length) - 1];
+            error = t * Math.sqrt(var / (n - 1)) / Math.sqrt(n);
+        }
+        System.out.println(row + String.format("  %5s %3d %14.3f +- %10.3f  %s", mode, n, mean, error, units));
+    }
+
+    private static List<Map<String, String>> combinations(Map<String, List<String>> values) {
+        List<Map<String, String>> out = new ArrayList<>();
+        out.add(new LinkedHashMap<>());
+        for (Map.Entry<String, List<String>> e : values.entrySet()) {
+            List<Map<String, String>> next = new ArrayList<>();
+            for (Map<String, String> partial : out) {
+                for (String v : e.getValue()) {
+                    Map<String, String> m = new LinkedHashMap<>(partial);
+                    m.put(e.getKey(), v);
+                    next.add(m);
+                }
+            }
+            out = next;
+        }
+        return out;
+    }
+}
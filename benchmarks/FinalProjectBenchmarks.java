@@ -0,0 +1,67 @@
+import java.util.Map;
+
+/**
+ * Benchmarks for the analyzers in {@code finalproject}, without Swing. Its classes share
+ * names with {@code tplprojectanalysis}, so this suite is compiled on its own.
+ *
+ * <pre>
+ *   javac -sourcepath finalproject:benchmarks -d out/bench-fp benchmarks/FinalProjectBenchmarks.java
+ *   java -cp out/bench-fp FinalProjectBenchmarks [options, as for TplBenchmarks]
+ * </pre>
+ */
+public class FinalProjectBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        new Bench("finalproject")
+            .param("size", "1000", "100000")
+            .param("errors", "0.0", "0.1")
+            .add("lexical", p -> {
+                String src = source(p);
+                LexicalAnalyzer lexical = new LexicalAnalyzer();
+                return () -> {
+                    lexical.analyze(src);
+                    return lexical.getTokens();
+                };
+            })
+            .add("syntax", p -> {
+                LexicalAnalyzer lexical = new LexicalAnalyzer();
+                lexical.analyze(source(p));
+                SyntaxAnalyzer syntax = new SyntaxAnalyzer();
+                return () -> {
+                    syntax.analyze(lexical.getTokens());
+                    return syntax.getAst();
+                };
+            })
+            .add("semantic", p -> {
+                LexicalAnalyzer lexical = new LexicalAnalyzer();
+                lexical.analyze(source(p));
+                SyntaxAnalyzer syntax = new SyntaxAnalyzer();
+                syntax.analyze(lexical.getTokens());
+                Ast ast = syntax.getAst();
+                SemanticAnalyzer semantic = new SemanticAnalyzer();
+                return () -> {
+                    semantic.analyze(ast);
+                    return semantic.getErrors();
+                };
+            })
+            .add("pipeline", p -> {
+                String src = source(p);
+                return () -> {
+                    LexicalAnalyzer lexical = new LexicalAnalyzer();
+                    lexical.analyze(src);
+                    SyntaxAnalyzer syntax = new SyntaxAnalyzer();
+                    syntax.analyze(lexical.getTokens());
+                    SemanticAnalyzer semantic = new SemanticAnalyzer();
+                    semantic.analyze(syntax.getAst());
+                    return semantic.getErrors();
+                };
+            })
+            .run(args);
+    }
+
+    private static String source(Map<String, String> p) {
+        ProgramGenerator generator = new ProgramGenerator(42).errorDensity(Double.parseDouble(p.get("errors")));
+        generator.statements = Long.parseLong(p.get("size"));
+        return generator.generate();
+    }
+}
@@ -0,0 +1,232 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates programs in the TPL dialect for load tests and benchmarks. The same seed and
+ * settings always give the same program. Output is streamed to an {@link Appendable}, and
+ * only a bounded pool of declared names is kept, so programs of any size can be written.
+ *
+ * <p>Each statement is a new declaration or a reassignment of an earlier variable. Comment
+ * and blank lines may come between statements. A statement can be replaced by one with a
+ * lexical, syntax or semantic error, each kind at its own rate.
+ *
+ * <pre>
+ *   java ProgramGenerator [-n statements] [-seed n] [-reassign rate] [-comments rate]
+ *        [-blank rate] [-lexical rate] [-syntax rate] [-semantic rate]
+ *        [-types int=4,String=1,...] [-o file]
+ * </pre>
+ */
+public class ProgramGenerator {
+    public static final String[] TYPES = { "byte", "short", "int", "long", "float", "double", "char", "boolean", "String" };
+    private static final int BYTE = 0, SHORT = 1, INT = 2, LONG = 3, FLOAT = 4, DOUBLE = 5, CHAR = 6, BOOLEAN = 7, STRING = 8;
+
+    private static final int POOL = 4096;
+    private static final int FLUSH_AT = 1 << 16;
+    private static final String WORDS = "abcdefghijklmnopqrstuvwxyz";
+    private static final String[] ESCAPES = { "\\n", "\\t", "\\\\", "\\\"", "\\'" };
+
+    public long seed;
+    public long statements = 1000;
+    public double reassignRate = 0.3;
+    public double commentRate = 0.02;
+    public double blankRate = 0.02;
+    public double lexicalErrorRate;
+    public double syntaxErrorRate;
+    public double semanticErrorRate;
+    /** Relative weight of each entry of {@link #TYPES} among generated literals. */
+    public final double[] typeWeights = { 1, 1, 4, 1, 1, 2, 1, 1, 2 };
+
+    private SplittableRandom random;
+    private final String[] poolNames = new String[POOL];
+    private final int[] poolTypes = new int[POOL];
+    private int poolSize;
+    private long nextName;
+
+    public ProgramGenerator() {
+        this(1);
+    }
+
+    public ProgramGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /** Sets the lexical, syntax and semantic error rates to a third of {@code density} each. */
+    public ProgramGenerator errorDensity(double density) {
+        lexicalErrorRate = syntaxErrorRate = semanticErrorRate = density / 3;
+        return this;
+    }
+
+    public String generate() {
+        StringBuilder sb = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, statements * 20));
+        try {
+            generate(sb);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return sb.toString();
+    }
+
+    public void generate(Appendable out) throws IOException {
+        random = new SplittableRandom(seed);
+        poolSize = 0;
+        nextName = 0;
+        double totalWeight = 0;
+        for (double w : typeWeights) totalWeight += w;
+
+        StringBuilder line = new StringBuilder(FLUSH_AT + 256);
+        for (long i = 0; i < statements; i++) {
+            if (random.nextDouble() < commentRate) line.append("// statement ").append(i).append('\n');
+            if (random.nextDouble() < blankRate) line.append('\n');
+
+            double r = random.nextDouble();
+            if (r < lexicalErrorRate) lexicalError(line);
+            else if ((r -= lexicalErrorRate) < syntaxErrorRate) syntaxError(line);
+            else if ((r -= syntaxErrorRate) < semanticErrorRate) semanticError(line);
+            else if (poolSize > 0 && random.nextDouble() < reassignRate) {
+                int k = random.nextInt(poolSize);
+                line.append(poolNames[k]).append(" = ");
+                literal(line, poolTypes[k]);
+                line.append(';');
+            } else {
+                int type = pickType(totalWeight);
+                String name = newName();
+                line.append(TYPES[type]).append(' ').append(name).append(" = ");
+                literal(line, type);
+                line.append(';');
+                remember(name, type);
+            }
+            line.append('\n');
+
+            if (line.length() >= FLUSH_AT) {
+                out.append(line);
+                line.setLength(0);
+            }
+        }
+        out.append(line);
+    }
+
+    private void lexicalError(StringBuilder line) {
+        switch (random.nextInt(4)) {
+            case 0 -> line.append("int ").append(newName()).append(" = 12abc;");
+            case 1 -> line.append("char ").append(newName()).append(" = 'ab';");
+            case 2 -> line.append("String ").append(newName()).append(" = \"bad \\q escape\";");
+            default -> line.append("int 9").append(newName()).append(" = 1;");
+        }
+    }
+
+    private void syntaxError(StringBuilder line) {
+        String name = newName();
+        switch (random.nextInt(4)) {
+            case 0 -> line.append("int ").append(name).append(" = 5");
+            case 1 -> line.append("int ").append(name).append(" 5;");
+            case 2 -> line.append("int long ").append(name).append(" = 5;");
+            default -> line.append("number ").append(name).append(" = 5;");
+        }
+    }
+
+    private void semanticError(StringBuilder line) {
+        int kind = random.nextInt(poolSize > 0 ? 4 : 2);
+        switch (kind) {
+            case 0 -> line.append(newName()).append(" = 1;");
+            case 1 -> line.append("boolean ").append(newName()).append(" = 42;");
+            case 2 -> {
+                int k = random.nextInt(poolSize);
+                line.append(TYPES[poolTypes[k]]).append(' ').append(poolNames[k]).append(" = ");
+                literal(line, poolTypes[k]);
+                line.append(';');
+            }
+            default -> {
+                int k = random.nextInt(poolSize);
+                line.append(poolNames[k]).append(" = ").append(poolTypes[k] == STRING ? "true" : "\"text\"").append(';');
+            }
+        }
+    }
+
+    private void literal(StringBuilder line, int type) {
+        switch (type) {
+            case BYTE -> line.append(random.nextInt(-128, 128));
+            case SHORT -> line.append(random.nextInt(Short.MIN_VALUE, Short.MAX_VALUE + 1));
+            case INT -> line.append(random.nextInt());
+            case LONG -> line.append(random.nextLong()).append('L');
+            case FLOAT -> line.append(random.nextInt(1000)).append('.').append(random.nextInt(100)).append('f');
+            case DOUBLE -> line.append(random.nextInt(100000)).append('.').append(random.nextInt(10000));
+            case CHAR -> {
+                if (random.nextInt(8) == 0) line.append('\'').append(ESCAPES[random.nextInt(ESCAPES.length)]).append('\'');
+                else line.append('\'').append(WORDS.charAt(random.nextInt(WORDS.length()))).append('\'');
+            }
+            case BOOLEAN -> line.append(random.nextBoolean());
+            default -> {
+                line.append('"');
+                for (int n = random.nextInt(12); n > 0; n--) {
+                    if (random.nextInt(16) == 0) line.append(ESCAPES[random.nextInt(ESCAPES.length)]);
+                    else line.append(WORDS.charAt(random.nextInt(WORDS.length())));
+                }
+                line.append('"');
+            }
+        }
+    }
+
+    private int pickType(double totalWeight) {
+        double r = random.nextDouble() * totalWeight;
+        for (int t = 0; t < typeWeights.length; t++) {
+            if ((r -= typeWeights[t]) < 0) return t;
+        }
+        return INT;
+    }
+
+    private String newName() {
+        return "v" + nextName++;
+    }
+
+    private void remember(String name, int type) {
+        // Once the pool is full, new names overwrite random old ones.
+        int k = poolSize < POOL ? poolSize++ : random.nextInt(POOL);
+        poolNames[k] = name;
+        poolTypes[k] = type;
+    }
+
+    public static void main(String[] args) throws IOException {
+        ProgramGenerator gen = new ProgramGenerator();
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-n" -> gen.statements = Long.parseLong(args[++i]);
+                case "-seed" -> gen.seed = Long.parseLong(args[++i]);
+                case "-reassign" -> gen.reassignRate = Double.parseDouble(args[++i]);
+                case "-comments" -> gen.commentRate = Double.parseDouble(args[++i]);
+                case "-blank" -> gen.blankRate = Double.parseDouble(args[++i]);
+                case "-lexical" -> gen.lexicalErrorRate = Double.parseDouble(args[++i]);
+                case "-syntax" -> gen.syntaxErrorRate = Double.parseDouble(args[++i]);
+                case "-semantic" -> gen.semanticErrorRate = Double.parseDouble(args[++i]);
+                case "-types" -> {
+                    Arrays.fill(gen.typeWeights, 0);
+                    for (String entry : args[++i].split(",")) {
+                        String[] kv = entry.split("=", 2);
+                        int t = Arrays.asList(TYPES).indexOf(kv[0]);
+                        if (t < 0) throw new IllegalArgumentException("Unknown type " + kv[0]);
+                        gen.typeWeights[t] = kv.length > 1 ? Double.parseDouble(kv[1]) : 1;
+                    }
+                }
+                case "-o" -> output = args[++i];
+                default -> {
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        Writer out = output == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(output));
+        try (Writer w = new BufferedWriter(out, 1 << 16)) {
+            gen.generate(w);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmarks for the analyzers in {@code tplprojectanalysis}, without Swing. Each operation
+ * processes one whole generated program; {@code size} is its statement count and {@code errors}
+ * the fraction of lines with an error. Compiling, lowering and running need a program without
+ * errors, so those benchmarks ignore {@code errors}.
+ *
+ * <pre>
+ *   javac -sourcepath tplprojectanalysis/core:benchmarks -d out/bench-tpl benchmarks/TplBenchmarks.java
+ *   java -cp out/bench-tpl TplBenchmarks [-wi 3] [-i 5] [-r 1000] [-bm thrpt|avgt|all] [-p size=1000] [regex]
+ * </pre>
+ */
+public class TplBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        new Bench("tplprojectanalysis")
+            .param("size", "1000", "100000")
+            .param("errors", "0.0", "0.1")
+            .add("classifyValue", p -> {
+                String[] literals = literals(source(p));
+                return () -> {
+                    int found = 0;
+                    for (String v : literals) if (Utils.classifyValue(v) != null) found++;
+                    return found;
+                };
+            })
+            .add("lex", p -> {
+                String src = source(p);
+                return () -> new Lexer().lex(src, new ArrayList<>());
+            })
+            .add("lexParallel", p -> {
+                String src = source(p);
+                ParallelLexer lexer = new ParallelLexer(ForkJoinPool.commonPool());
+                return () -> lexer.lex(src, new ArrayList<>(), Progress.NONE);
+            })
+            .add("parse", p -> {
+                TokenStream tokens = new Lexer().lex(source(p), new ArrayList<>());
+                Parser parser = new Parser();
+                return () -> {
+                    List<Diagnostic> errors = new ArrayList<>();
+                    parser.parse(tokens, errors);
+                    return errors;
+                };
+            })
+            .add("semantic", p -> {
+                TokenStream tokens = new Lexer().lex(source(p), new ArrayList<>());
+                SemanticAnalyzer semantic = new SemanticAnalyzer();
+                return () -> {
+                    List<Diagnostic> errors = new ArrayList<>();
+                    semantic.analyze(tokens, errors);
+                    return errors;
+                };
+            })
+            .add("semanticParallel", p -> {
+                TokenStream tokens = new Lexer().lex(source(p), new ArrayList<>());
+                SemanticAnalyzer semantic = new SemanticAnalyzer(ForkJoinPool.commonPool());
+                return () -> {
+                    List<Diagnostic> errors = new ArrayList<>();
+                    semantic.analyze(tokens, errors);
+                    return errors;
+                };
+            })
+            .add("pipeline", p -> {
+                String src = source(p);
+                return () -> {
+                    List<Diagnostic> errors = new ArrayList<>();
+                    TokenStream tokens = new Lexer().lex(src, errors);
+                    new Parser().parse(tokens, errors);
+                    new SemanticAnalyzer().analyze(tokens, errors);
+                    return errors;
+                };
+            })
+            .add("streaming", p -> {
+                String src = source(p);
+                return () -> {
+                    List<Diagnostic> errors = new ArrayList<>();
+                    StreamingAnalyzer.analyze(new StringReader(src), errors::add);
+                    return errors;
+                };
+            })
+            .add("compile", p -> {
+                AnalysisResult result = new Pipeline().run(checkedSource(p));
+                return () -> CodeGenerator.compile(result);
+            })
+            .add("run", p -> {
+                CodeGenerator.Program program = CodeGenerator.compile(new Pipeline().run(checkedSource(p)));
+                return program::run;
+            })
+            .add("lower", p -> {
+                AnalysisResult result = new Pipeline().run(checkedSource(p));
+                return () -> Interpreter.lower(result);
+            })
+            .add("interpret", p -> {
+                Interpreter.Program program = Interpreter.lower(new Pipeline().run(checkedSource(p)));
+                return program::run;
+            })
+            .add("incrementalEdit", p -> {
+                IncrementalAnalyzer analyzer = new IncrementalAnalyzer();
+                analyzer.reset(source(p));
+                int middle = analyzer.lineCount() / 2;
+                List<String> edit = List.of("int edited = 1;");
+                return () -> {
+                    analyzer.replaceLines(middle, 1, edit);
+                    return analyzer;
+                };
+            })
+            .run(args);
+    }
+
+    private static String source(Map<String, String> p) {
+        return source(p, Double.parseDouble(p.get("errors")));
+    }
+
+    /** A program of {@code size} statements without errors, whatever {@code errors} is; only those compile or run. */
+    private static String checkedSource(Map<String, String> p) {
+        return source(p, 0);
+    }
+
+    private static String source(Map<String, String> p, double errors) {
+        ProgramGenerator generator = new ProgramGenerator(42).errorDensity(errors);
+        generator.statements = Long.parseLong(p.get("size"));
+        return generator.generate();
+    }
+
+    /** The value of every assignment in {@code src}, as the lexer would see it. */
+    private static String[] literals(String src) {
+        List<String> out = new ArrayList<>();
+        for (String line : src.split("\n")) {
+            int eq = line.indexOf('=');
+            if (eq < 0) continue;
+            String value = line.substring(eq + 1).trim();
+            if (value.endsWith(";")) value = value.substring(0, value.length() - 1).trim();
+            out.add(value);
+        }
+        return out.toArray(new String[0]);
+    }
+}
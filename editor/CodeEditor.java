@@ -0,0 +1,48 @@
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import javax.swing.JTextPane;
+import javax.swing.text.*;
+
+/**
+ * The code area: a styled, unwrapped editor whose text is colored by a
+ * {@link SyntaxHighlighter} as it changes, with the language's own lexer.
+ */
+public class CodeEditor extends JTextPane {
+    private int tabSize = 4;
+
+    public CodeEditor(SyntaxHighlighter.LineLexer lexer) {
+        new SyntaxHighlighter(this, lexer);
+        addPropertyChangeListener("font", e -> applyTabs());
+        addPropertyChangeListener("document", e -> applyTabs());
+        applyTabs();
+    }
+
+    /** Long lines scroll instead of wrapping, as in a JTextArea. */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        Component parent = getParent();
+        return parent == null || getUI().getPreferredSize(this).width <= parent.getSize().width;
+    }
+
+    public int getTabSize() { return tabSize; }
+
+    /** Sets tab stops every {@code size} characters of the current font. */
+    public void setTabSize(int size) {
+        tabSize = size;
+        applyTabs();
+    }
+
+    private void applyTabs() {
+        Font font = getFont();
+        if (font == null) return;
+        FontMetrics fm = getFontMetrics(font);
+        int width = fm.charWidth('m') * tabSize;
+        TabStop[] stops = new TabStop[100];
+        for (int i = 0; i < stops.length; i++) stops[i] = new TabStop((i + 1) * width);
+        SimpleAttributeSet tabs = new SimpleAttributeSet();
+        StyleConstants.setTabSet(tabs, new TabSet(stops));
+        StyledDocument doc = getStyledDocument();
+        doc.setParagraphAttributes(0, doc.getLength(), tabs, false);
+    }
+}
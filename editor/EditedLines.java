@@ -0,0 +1,49 @@
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.Element;
+
+/**
+ * The lines a document edit replaced: lines {@code [first, first + removed)} before it are
+ * lines {@code [first, first + added)} after it. Listeners that keep something per line
+ * splice it with this.
+ */
+public final class EditedLines {
+    public final int first;
+    public final int removed;
+    public final int added;
+
+    private EditedLines(int first, int removed, int added) {
+        this.first = first;
+        this.removed = removed;
+        this.added = added;
+    }
+
+    public static EditedLines of(DocumentEvent e) {
+        Element root = e.getDocument().getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+        int first, removed, added;
+        if (change == null) {
+            // The edit stayed within one line.
+            first = root.getElementIndex(e.getOffset());
+            removed = added = 1;
+        } else {
+            first = change.getIndex();
+            removed = change.getChildrenRemoved().length;
+            added = change.getChildrenAdded().length;
+        }
+        // A styled document keeps the elements of the lines an edit starts and ends in, and
+        // reports only the lines it added between them; count those two as replaced too.
+        int edited = root.getElementIndex(e.getOffset());
+        int editedEnd = e.getType() == DocumentEvent.EventType.INSERT
+                ? root.getElementIndex(e.getOffset() + e.getLength()) : edited;
+        if (edited < first) {
+            removed += first - edited;
+            added += first - edited;
+            first = edited;
+        }
+        if (editedEnd >= first + added) {
+            removed += editedEnd - (first + added) + 1;
+            added = editedEnd - first + 1;
+        }
+        return new EditedLines(first, removed, added);
+    }
+}
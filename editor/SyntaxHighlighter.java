@@ -0,0 +1,167 @@
+import java.awt.Color;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.*;
+
+/**
+ * Colors the code in a {@link JTextPane}'s styled document by what a {@link LineLexer} makes
+ * of each line. The lexer state at the start of every line is cached. An edit re-lexes and
+ * restyles from the first line it touched, past the last one, until a line ends in the state
+ * already cached for the next, so opening or closing a block comment restyles just the lines
+ * it covers. Styling runs after the edit's notification, {@link #LINES_PER_PASS} lines at a
+ * time, so a large file is colored without freezing the editor.
+ */
+public class SyntaxHighlighter implements DocumentListener {
+    static final int LINES_PER_PASS = 2000;
+    private static final int UNKNOWN = -1;
+
+    public static final SimpleAttributeSet COMMENT = style(new Color(149, 165, 166), false, true);
+    public static final SimpleAttributeSet TYPE = style(new Color(41, 128, 185), true, false);
+    public static final SimpleAttributeSet IDENTIFIER = style(new Color(44, 62, 80), false, false);
+    public static final SimpleAttributeSet OPERATOR = style(new Color(127, 140, 141), true, false);
+    public static final SimpleAttributeSet STRING = style(new Color(39, 174, 96), false, false);
+    public static final SimpleAttributeSet NUMBER = style(new Color(211, 84, 0), false, false);
+    public static final SimpleAttributeSet BOOLEAN = style(new Color(142, 68, 173), true, false);
+    public static final SimpleAttributeSet INVALID = style(new Color(192, 57, 43), false, false);
+
+    /** What a language's lexer makes of one line. */
+    public interface LineLexer {
+        /** The state the first line starts in. */
+        int START = 0;
+
+        /**
+         * Lexes {@code line}, which starts in {@code state}, passing each token's span in the
+         * line and style to {@code out}, and returns the state the line ends in. Whatever gets
+         * no token is styled as a comment.
+         */
+        int lex(Segment line, int state, TokenStyles out);
+    }
+
+    public interface TokenStyles {
+        void style(int start, int end, AttributeSet style);
+    }
+
+    private final JTextComponent editor;
+    private final LineLexer lexer;
+    private final Segment text = new Segment();
+    private final TokenStyles styles = this::styleToken;
+    // JTextComponent.read() installs a new document, so follow the "document" property.
+    private final PropertyChangeListener documentSwap = e -> {
+        ((Document) e.getOldValue()).removeDocumentListener(this);
+        attach((Document) e.getNewValue());
+    };
+
+    private StyledDocument doc;
+    private int lineCount;
+    private int[] states = new int[16];
+    // The lines still to restyle, as positions so that later edits move them along.
+    private Position damageStart, damageEnd;
+    private boolean scheduled;
+    // Where the line being styled starts.
+    private int lineStart;
+
+    public SyntaxHighlighter(JTextPane editor, LineLexer lexer) {
+        this.editor = editor;
+        this.lexer = lexer;
+        editor.addPropertyChangeListener("document", documentSwap);
+        attach(editor.getDocument());
+    }
+
+    private void attach(Document document) {
+        if (!(document instanceof StyledDocument styled)) return;
+        doc = styled;
+        doc.addDocumentListener(this);
+        lineCount = doc.getDefaultRootElement().getElementCount();
+        states = new int[Math.max(16, lineCount + 1)];
+        Arrays.fill(states, 0, lineCount, UNKNOWN);
+        states[0] = LineLexer.START;
+        damageStart = damageEnd = null;
+        damage(0, lineCount - 1);
+    }
+
+    @Override public void insertUpdate(DocumentEvent e) { update(e); }
+    @Override public void removeUpdate(DocumentEvent e) { update(e); }
+    @Override public void changedUpdate(DocumentEvent e) {}
+
+    private void update(DocumentEvent e) {
+        EditedLines lines = EditedLines.of(e);
+        int first = lines.first, removed = lines.removed, added = lines.added;
+
+        // The state at the start of the first line still holds; those of the new lines after it are unknown.
+        int[] next = added > removed && lineCount + added - removed > states.length
+                ? new int[Math.max(2 * states.length, lineCount + added - removed + 1)] : states;
+        System.arraycopy(states, 0, next, 0, first + 1);
+        System.arraycopy(states, first + removed, next, first + added, lineCount - first - removed);
+        if (added > 1) Arrays.fill(next, first + 1, first + added, UNKNOWN);
+        states = next;
+        lineCount = doc.getDefaultRootElement().getElementCount();
+        damage(first, first + added - 1);
+    }
+
+    /** Marks lines {@code [first, last]} for restyling and schedules a pass if none is pending. */
+    private void damage(int first, int last) {
+        Element root = doc.getDefaultRootElement();
+        int start = root.getElement(first).getStartOffset();
+        int end = root.getElement(Math.max(first, last)).getEndOffset() - 1;
+        try {
+            if (damageStart == null || start < damageStart.getOffset()) damageStart = doc.createPosition(start);
+            if (damageEnd == null || end > damageEnd.getOffset()) damageEnd = doc.createPosition(end);
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+        if (!scheduled) {
+            scheduled = true;
+            SwingUtilities.invokeLater(this::restyle);
+        }
+    }
+
+    /** Restyles the damaged lines, and the lines after them until the lexer state converges. */
+    private void restyle() {
+        scheduled = false;
+        if (damageStart == null || editor.getDocument() != doc) return;
+        Element root = doc.getDefaultRootElement();
+        int line = root.getElementIndex(damageStart.getOffset());
+        int last = root.getElementIndex(damageEnd.getOffset());
+        damageStart = damageEnd = null;
+
+        int state = states[line];
+        for (int n = 1; ; n++) {
+            int end = highlight(root.getElement(line), state);
+            if (line + 1 >= lineCount || (line >= last && states[line + 1] == end)) return;
+            states[++line] = state = end;
+            if (n == LINES_PER_PASS) {
+                damage(line, Math.max(line, last));
+                return;
+            }
+        }
+    }
+
+    /** Styles one line and returns the lexer state at its end. */
+    private int highlight(Element line, int state) {
+        lineStart = line.getStartOffset();
+        int end = Math.min(line.getEndOffset() - 1, doc.getLength());
+        try {
+            doc.getText(lineStart, end - lineStart, text);
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+        doc.setCharacterAttributes(lineStart, end - lineStart, COMMENT, true);
+        return lexer.lex(text, state, styles);
+    }
+
+    private void styleToken(int from, int to, AttributeSet style) {
+        doc.setCharacterAttributes(lineStart + from, to - from, style, true);
+    }
+
+    private static SimpleAttributeSet style(Color color, boolean bold, boolean italic) {
+        SimpleAttributeSet s = new SimpleAttributeSet();
+        StyleConstants.setForeground(s, color);
+        StyleConstants.setBold(s, bold);
+        StyleConstants.setItalic(s, italic);
+        return s;
+    }
+}
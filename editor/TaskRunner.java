@@ -0,0 +1,125 @@
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.swing.*;
+
+/**
+ * Runs one task at a time on a SwingWorker so the window stays responsive, with its progress
+ * in a progress bar. The Cancel button interrupts the worker; the buttons stay locked until
+ * the background thread has actually left, since the tasks share analyzers.
+ */
+public class TaskRunner {
+    /** Where a task reports how much of its work is done, from its own thread. */
+    public interface Updates {
+        void update(int done, int total);
+    }
+
+    private final JProgressBar progressBar;
+    private final JButton cancelBtn;
+    private final String unit;
+    private final AbstractButton[] lockedButtons;
+
+    private SwingWorker<?, int[]> current;
+
+    /** {@code unit} follows the counts in the progress bar, e.g. " lines". */
+    public TaskRunner(JProgressBar progressBar, JButton cancelBtn, String unit, AbstractButton... lockedButtons) {
+        this.progressBar = progressBar;
+        this.cancelBtn = cancelBtn;
+        this.unit = unit;
+        this.lockedButtons = lockedButtons;
+
+        progressBar.setStringPainted(true);
+        progressBar.setString("Idle");
+        cancelBtn.setEnabled(false);
+        cancelBtn.addActionListener(e -> cancel());
+    }
+
+    public boolean isRunning() { return current != null; }
+
+    public void cancel() {
+        if (current != null) current.cancel(true);
+    }
+
+    /**
+     * Runs {@code work} in the background and hands its result to {@code onDone} on the EDT.
+     * If it is cancelled or fails, {@code onStopped} gets a message saying so instead, as soon
+     * as that is known. While it runs, the locked buttons are disabled. Afterwards they go back
+     * to their previous state, before {@code onDone} gets a chance to change them.
+     */
+    public <T> void run(String name, Function<Updates, T> work, Consumer<T> onDone, Consumer<String> onStopped) {
+        if (current != null) return;
+
+        boolean[] enabled = new boolean[lockedButtons.length];
+        for (int i = 0; i < lockedButtons.length; i++) {
+            enabled[i] = lockedButtons[i].isEnabled();
+            lockedButtons[i].setEnabled(false);
+        }
+        cancelBtn.setEnabled(true);
+        progressBar.setIndeterminate(true);
+        progressBar.setString(name + "...");
+
+        SwingWorker<T, int[]> worker = new SwingWorker<>() {
+            // Set by the thread as it starts, or by done() if it is cancelled before that.
+            private final AtomicBoolean started = new AtomicBoolean();
+            // The run is over once done() has run and the thread has left, in either order.
+            private int pending = 2;
+            private Runnable then = () -> {};
+
+            @Override
+            protected T doInBackground() {
+                if (!started.compareAndSet(false, true)) return null;
+                try {
+                    return work.apply((done, total) -> publish(new int[] { done, total }));
+                } finally {
+                    SwingUtilities.invokeLater(this::release);
+                }
+            }
+
+            @Override
+            protected void process(List<int[]> chunks) {
+                // Updates are coalesced; only the latest one matters, and none after cancel.
+                int[] last = chunks.get(chunks.size() - 1);
+                if (isDone() || last[1] <= 0) return;
+                progressBar.setIndeterminate(false);
+                progressBar.setMaximum(last[1]);
+                progressBar.setValue(last[0]);
+                progressBar.setString(name + ": " + last[0] + " / " + last[1] + unit);
+            }
+
+            @Override
+            protected void done() {
+                cancelBtn.setEnabled(false);
+                progressBar.setIndeterminate(false);
+                progressBar.setValue(0);
+                if (started.compareAndSet(false, true)) pending--;
+
+                if (isCancelled()) {
+                    progressBar.setString(name + " cancelled");
+                    onStopped.accept(name + " cancelled.");
+                } else {
+                    try {
+                        T result = get();
+                        progressBar.setString(name + " finished");
+                        then = () -> onDone.accept(result);
+                    } catch (InterruptedException | ExecutionException ex) {
+                        progressBar.setString(name + " failed");
+                        onStopped.accept(name + " failed: " + ex.getCause());
+                    }
+                }
+                release();
+            }
+
+            /** Unlocks the buttons and runs {@code onDone} on the second call. */
+            private void release() {
+                if (--pending > 0) return;
+                current = null;
+                for (int i = 0; i < lockedButtons.length; i++) lockedButtons[i].setEnabled(enabled[i]);
+                then.run();
+            }
+        };
+        current = worker;
+        worker.execute();
+    }
+}
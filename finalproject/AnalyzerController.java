@@ -1,18 +1,26 @@
 import java.io.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import javax.swing.*;
+import javax.swing.text.JTextComponent;
 
 public class AnalyzerController {
-    private JTextArea codeArea, resultArea;
-    private JButton openButton, lexicalButton, syntaxButton, semanticButton, clearButton;
+    private JTextComponent codeArea;
+    private JTextArea resultArea;
+    private JButton openButton, lexicalButton, syntaxButton, semanticButton, clearButton, cancelButton;
+    private JProgressBar progressBar;
+    private JLabel metricsLabel;
+    private TaskRunner runner;
 
     private LexicalAnalyzer lexical = new LexicalAnalyzer();
     private SyntaxAnalyzer syntax = new SyntaxAnalyzer();
     private SemanticAnalyzer semantic = new SemanticAnalyzer();
 
-    public AnalyzerController(JTextArea codeArea, JTextArea resultArea,
+    public AnalyzerController(JTextComponent codeArea, JTextArea resultArea,
                               JButton openButton, JButton lexicalButton,
                               JButton syntaxButton, JButton semanticButton,
-                              JButton clearButton) {
+                              JButton clearButton, JButton cancelButton,
+                              JProgressBar progressBar, JLabel metricsLabel) {
         this.codeArea = codeArea;
         this.resultArea = resultArea;
         this.openButton = openButton;
@@ -20,12 +28,17 @@ public class AnalyzerController {
         this.syntaxButton = syntaxButton;
         this.semanticButton = semanticButton;
         this.clearButton = clearButton;
+        this.cancelButton = cancelButton;
+        this.progressBar = progressBar;
+        this.metricsLabel = metricsLabel;
     }
 
     public void initListeners() {
         lexicalButton.setEnabled(false);
         syntaxButton.setEnabled(false);
         semanticButton.setEnabled(false);
+        runner = new TaskRunner(progressBar, cancelButton, "",
+                openButton, lexicalButton, syntaxButton, semanticButton, clearButton);
 
         openButton.addActionListener(e -> {
             JFileChooser chooser = new JFileChooser();
@@ -45,40 +58,79 @@ public class AnalyzerController {
         });
 
         lexicalButton.addActionListener(e -> {
-            lexical.analyze(codeArea.getText());
-            resultArea.setText("Tokens:\n");
-            for (LexicalAnalyzer.Token token : lexical.getTokens()) {
-                resultArea.append(token.toString() + "\n");
-            }
-            lexicalButton.setEnabled(false);
-            syntaxButton.setEnabled(true);
+            String code = codeArea.getText();
+            runInBackground("Lexical analysis", progress -> {
+                lexical.analyze(code, progress);
+                return lexical.getTokens();
+            }, tokens -> {
+                StringBuilder out = new StringBuilder("Tokens:\n");
+                for (TokenBuffer.Cursor token = tokens.cursor(); token.next(); ) out.append(token).append('\n');
+                if (!lexical.getErrors().isEmpty()) {
+                    out.append("\nLexical Errors:\n");
+                    for (String error : lexical.getErrors()) out.append(error).append('\n');
+                }
+                resultArea.setText(out.toString());
+                lexicalButton.setEnabled(false);
+                syntaxButton.setEnabled(true);
+            });
         });
 
-        syntaxButton.addActionListener(e -> {
-            syntax.analyze(lexical.getTokens());
-            resultArea.setText("Declarations:\n");
-            for (SyntaxAnalyzer.VariableDeclaration decl : syntax.getDeclarations()) {
-                resultArea.append(decl.toString() + "\n");
+        syntaxButton.addActionListener(e -> runInBackground("Syntax analysis", progress -> {
+            syntax.analyze(lexical.getTokens(), progress);
+            return syntax.getAst();
+        }, ast -> {
+            StringBuilder out = new StringBuilder("Declarations:\n");
+            for (int d = 0; d < ast.size(); d++) out.append(ast.toString(d)).append('\n');
+            if (!syntax.getErrors().isEmpty()) {
+                out.append("\nSyntax Errors:\n");
+                for (String error : syntax.getErrors()) out.append(error).append('\n');
             }
+            resultArea.setText(out.toString());
             syntaxButton.setEnabled(false);
             semanticButton.setEnabled(true);
-        });
+        }));
 
-        semanticButton.addActionListener(e -> {
-            semantic.analyze(syntax.getDeclarations());
-            resultArea.setText("Semantic Check:\n");
-            for (String error : semantic.getErrors()) {
-                resultArea.append(error + "\n");
-            }
+        semanticButton.addActionListener(e -> runInBackground("Semantic analysis", progress -> {
+            semantic.analyze(syntax.getAst(), progress);
+            return semantic.getErrors();
+        }, errors -> {
+            StringBuilder out = new StringBuilder("Semantic Check:\n");
+            for (String error : errors) out.append(error).append('\n');
+            resultArea.setText(out.toString());
             semanticButton.setEnabled(false);
-        });
+        }));
 
         clearButton.addActionListener(e -> {
             codeArea.setText("");
             resultArea.setText("");
+            metricsLabel.setText(" ");
             lexicalButton.setEnabled(false);
             syntaxButton.setEnabled(false);
             semanticButton.setEnabled(false);
         });
     }
+
+    /**
+     * Runs one phase off the Event Dispatch Thread, timing it on the thread that runs it. The
+     * result is rendered on the EDT in a single update.
+     */
+    private <T> void runInBackground(String name, Function<Progress, T> work, Consumer<T> onDone) {
+        runner.run(name, updates -> {
+            PhaseMetrics.Probe probe = PhaseMetrics.start();
+            T result = work.apply(updates::update);
+            return new Timed<>(result, probe.stop());
+        }, timed -> {
+            onDone.accept(timed.result());
+            showMetrics(name, timed.probe());
+        }, resultArea::setText);
+    }
+
+    private record Timed<T>(T result, PhaseMetrics.Probe probe) {}
+
+    /** Puts what the phase just run cost in the status bar. */
+    private void showMetrics(String name, PhaseMetrics.Probe probe) {
+        TokenBuffer tokens = lexical.getTokens();
+        int declarations = name.startsWith("Lexical") ? 0 : syntax.getAst().size();
+        metricsLabel.setText(probe.metrics(name, tokens.lineCount(), tokens.size(), declarations).toString());
+    }
 }
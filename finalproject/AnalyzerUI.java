@@ -1,9 +1,10 @@
 import java.awt.*;
 import javax.swing.*;
+import javax.swing.text.JTextComponent;
 
 public class AnalyzerUI {
 
-    private final JTextArea codeArea = new JTextArea(15, 50);
+    private final CodeEditor codeArea = new CodeEditor(new HighlightLexer());
     private final JTextArea resultArea = new JTextArea(15, 50);
 
     private final JButton openBtn     = new JButton("Open File");
@@ -11,6 +12,9 @@ public class AnalyzerUI {
     private final JButton syntaxBtn   = new JButton("Syntax Analysis");
     private final JButton semanticBtn = new JButton("Semantic Analysis");
     private final JButton clearBtn    = new JButton("Clear");
+    private final JButton cancelBtn   = new JButton("Cancel");
+    private final JProgressBar progressBar = new JProgressBar();
+    private final JLabel metricsLabel = new JLabel(" ");
 
     public void createAndShowGUI() {
         // Try to use Nimbus (looks best)
@@ -58,12 +62,14 @@ public class AnalyzerUI {
         styleButton(syntaxBtn,   gray);
         styleButton(semanticBtn, gray);
         styleButton(clearBtn,    gray);
+        styleButton(cancelBtn,   new Color(190, 75, 70));
 
         left.add(openBtn);     left.add(Box.createVerticalStrut(15));
         left.add(lexicalBtn);  left.add(Box.createVerticalStrut(15));
         left.add(syntaxBtn);   left.add(Box.createVerticalStrut(15));
         left.add(semanticBtn); left.add(Box.createVerticalStrut(15));
-        left.add(clearBtn);    left.add(Box.createVerticalGlue());
+        left.add(clearBtn);    left.add(Box.createVerticalStrut(15));
+        left.add(cancelBtn);   left.add(Box.createVerticalGlue());
 
         // === Right Panel - Text Areas ===
         JPanel right = new JPanel(new GridLayout(2, 1, 0, 20));
@@ -73,15 +79,24 @@ public class AnalyzerUI {
 
         main.add(left, BorderLayout.WEST);
         main.add(right, BorderLayout.CENTER);
+        progressBar.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        metricsLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        metricsLabel.setForeground(new Color(95, 105, 125));
+        JPanel status = new JPanel(new BorderLayout(0, 5));
+        status.setOpaque(false);
+        status.add(progressBar, BorderLayout.CENTER);
+        status.add(metricsLabel, BorderLayout.SOUTH);
+        main.add(status, BorderLayout.SOUTH);
         frame.add(main);
         frame.setVisible(true);
 
         // Connect controller (you already have this class)
-        new AnalyzerController(codeArea, resultArea, openBtn, lexicalBtn, syntaxBtn, semanticBtn, clearBtn)
+        new AnalyzerController(codeArea, resultArea, openBtn, lexicalBtn, syntaxBtn, semanticBtn, clearBtn,
+                               cancelBtn, progressBar, metricsLabel)
             .initListeners();
     }
 
-    private JPanel createTextPanel(String title, JTextArea ta, boolean editable) {
+    private JPanel createTextPanel(String title, JTextComponent ta, boolean editable) {
         JPanel p = new JPanel(new BorderLayout());
         p.setBackground(Color.WHITE);
         p.setBorder(BorderFactory.createCompoundBorder(
@@ -94,7 +109,7 @@ public class AnalyzerUI {
         lbl.setForeground(new Color(40, 50, 70));
 
         ta.setFont(new Font("JetBrains Mono", Font.PLAIN, 14));
-        ta.setTabSize(4);
+        if (ta instanceof JTextArea area) area.setTabSize(4);
         ta.setEditable(editable);
         ta.setBackground(new Color(252, 254, 255));
         ta.setForeground(new Color(30, 30, 40));
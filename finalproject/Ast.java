@@ -0,0 +1,41 @@
+import java.util.Arrays;
+
+/**
+ * Syntax tree built by {@link SyntaxAnalyzer}. A program is a list of declarations, and the
+ * type, name and value of a declaration are always its first, second and fourth tokens, so
+ * a declaration node is stored as just the index of its first token. Texts are views of the
+ * source, not copies.
+ */
+public class Ast {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private TokenBuffer tokens = new TokenBuffer();
+    private int[] first = new int[INITIAL_CAPACITY];
+    private int size;
+
+    void reset(TokenBuffer tokens) {
+        this.tokens = tokens;
+        size = 0;
+    }
+
+    void addDeclaration(int firstToken) {
+        if (size == first.length) first = Arrays.copyOf(first, 2 * size);
+        first[size++] = firstToken;
+    }
+
+    public TokenBuffer tokens() { return tokens; }
+
+    /** The number of declarations. */
+    public int size() { return size; }
+
+    public CharSequence type(int d) { return tokens.view(first[d]); }
+    public CharSequence name(int d) { return tokens.view(first[d] + 1); }
+    public CharSequence value(int d) { return tokens.view(first[d] + 3); }
+    public int line(int d) { return tokens.line(first[d]); }
+    public int column(int d) { return tokens.column(first[d]); }
+
+    /** Declaration {@code d} as source text, such as "int x = 5;". */
+    public String toString(int d) {
+        return type(d) + " " + name(d) + " = " + value(d) + ";";
+    }
+}
@@ -0,0 +1,28 @@
+import javax.swing.text.AttributeSet;
+import javax.swing.text.Segment;
+
+/**
+ * Styles a line by what {@link LexicalAnalyzer} makes of it, for the {@link SyntaxHighlighter}.
+ * The state a line ends in says whether a block comment is still open.
+ */
+public class HighlightLexer implements SyntaxHighlighter.LineLexer {
+    private final LexicalAnalyzer lexer = new LexicalAnalyzer();
+
+    @Override
+    public int lex(Segment line, int state, SyntaxHighlighter.TokenStyles out) {
+        int next = lexer.analyzeLine(line.toString(), state);
+        TokenBuffer tokens = lexer.getTokens();
+        for (int i = 0; i < tokens.size(); i++) out.style(tokens.start(i), tokens.end(i), styleOf(tokens.kind(i)));
+        return next;
+    }
+
+    private static AttributeSet styleOf(TokenBuffer.Kind kind) {
+        return switch (kind) {
+            case TYPE -> SyntaxHighlighter.TYPE;
+            case IDENTIFIER -> SyntaxHighlighter.IDENTIFIER;
+            case NUMBER -> SyntaxHighlighter.NUMBER;
+            case STRING -> SyntaxHighlighter.STRING;
+            case ASSIGN, SEMICOLON -> SyntaxHighlighter.OPERATOR;
+        };
+    }
+}
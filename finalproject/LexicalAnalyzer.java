@@ -1,42 +1,167 @@
 import java.util.ArrayList;
 
+/**
+ * Scans the source once, character by character, into a {@link TokenBuffer} of spans.
+ *
+ * <ul>
+ *   <li>'=' and ';' are tokens of their own, with or without spaces around them.
+ *   <li>A string literal runs from '"' to the next unescaped '"' on the same line and may
+ *       contain spaces.
+ *   <li>"//" comments run to the end of the line and "/* ... *&#47;" comments to their end.
+ *   <li>Anything else up to whitespace or one of the above is a word: a type keyword, a
+ *       number if it starts with a digit, or otherwise an identifier.
+ * </ul>
+ *
+ * No objects are created per token; errors are the only exception.
+ */
 public class LexicalAnalyzer {
-    public static class Token {
-        String type;
-        String value;
+    /** What a line ends in: nothing open, or a block comment that goes on. */
+    public static final int NORMAL = 0;
+    public static final int IN_COMMENT = 1;
 
-        Token(String type, String value) {
-            this.type = type;
-            this.value = value;
-        }
+    private final TokenBuffer tokens = new TokenBuffer();
+    private final ArrayList<String> errors = new ArrayList<>();
 
-        public String toString() {
-            return type + " : " + value;
-        }
+    private String code;
+    private int line;
+    private int commentLine;
+
+    public void analyze(String code) {
+        analyze(code, Progress.NONE);
     }
 
-    private ArrayList<Token> tokens = new ArrayList<>();
+    public void analyze(String code, Progress progress) {
+        begin(code);
+        if (scan(0, progress) == IN_COMMENT) errors.add("Line " + commentLine + ": unterminated comment.");
+        this.code = null;
+    }
 
-    public void analyze(String code) {
-        tokens.clear();
-        String[] words = code.split("\\s+"); // split by spaces
-
-        for (String w : words) {
-            if (w.equals("int") || w.equals("double") || w.equals("String") || w.equals("boolean")) {
-                tokens.add(new Token("TYPE", w));
-            } else if (w.equals("=")) {
-                tokens.add(new Token("ASSIGN", w));
-            } else if (w.endsWith(";")) {
-                String name = w.substring(0, w.length() - 1);
-                tokens.add(new Token("IDENTIFIER", name));
-                tokens.add(new Token("SEMICOLON", ";"));
+    /**
+     * Scans one line of a larger source, for an editor that re-scans only what changed.
+     * {@code state} is what the line before ended in ({@link #NORMAL} for the first line),
+     * and what this one ends in is returned. Tokens are numbered as line 1, and a comment
+     * still open at the end is not an error.
+     */
+    public int analyzeLine(String text, int state) {
+        begin(text);
+        int from = state == IN_COMMENT ? commentEnd(0) : 0;
+        int end = from < 0 ? IN_COMMENT : scan(from, Progress.NONE);
+        this.code = null;
+        return end;
+    }
+
+    private void begin(String code) {
+        this.code = code;
+        tokens.reset(code);
+        errors.clear();
+        line = 1;
+    }
+
+    private int scan(int from, Progress progress) {
+        int checkAt = 0;
+        for (int i = from, n = code.length(); i < n; ) {
+            if (tokens.size() >= checkAt) {
+                Progress.checkpoint(progress, i, n);
+                checkAt = tokens.size() + Progress.INTERVAL;
+            }
+            char c = code.charAt(i);
+            if (isSpace(c)) {
+                if (c == '\n') newLine(i);
+                i++;
+            } else if (c == '=') {
+                tokens.add(TokenBuffer.Kind.ASSIGN, i, i + 1, line);
+                i++;
+            } else if (c == ';') {
+                tokens.add(TokenBuffer.Kind.SEMICOLON, i, i + 1, line);
+                i++;
+            } else if (c == '"') {
+                i = string(i);
+            } else if (c == '/' && i + 1 < n && code.charAt(i + 1) == '/') {
+                while (i < n && code.charAt(i) != '\n') i++;
+            } else if (c == '/' && i + 1 < n && code.charAt(i + 1) == '*') {
+                commentLine = line;
+                i = commentEnd(i + 2);
+                if (i < 0) return IN_COMMENT;
             } else {
-                tokens.add(new Token("IDENTIFIER", w));
+                i = word(i);
+            }
+        }
+        return NORMAL;
+    }
+
+    private void newLine(int at) {
+        line++;
+        tokens.addLine(at + 1);
+    }
+
+    private int string(int start) {
+        int n = code.length();
+        int i = start + 1;
+        while (i < n) {
+            char c = code.charAt(i);
+            if (c == '"') {
+                tokens.add(TokenBuffer.Kind.STRING, start, i + 1, line);
+                return i + 1;
             }
+            if (c == '\n') break;
+            i += c == '\\' && i + 1 < n && code.charAt(i + 1) != '\n' ? 2 : 1;
         }
+        tokens.add(TokenBuffer.Kind.STRING, start, i, line);
+        error(tokens.size() - 1, "unterminated string literal");
+        return i;
     }
 
-    public ArrayList<Token> getTokens() {
+    /** Skips the rest of a block comment from {@code from}: returns the index past its end, or -1 if it does not end. */
+    private int commentEnd(int from) {
+        int n = code.length();
+        for (int i = from; i + 1 < n; i++) {
+            char c = code.charAt(i);
+            if (c == '\n') newLine(i);
+            else if (c == '*' && code.charAt(i + 1) == '/') return i + 2;
+        }
+        if (n > from && code.charAt(n - 1) == '\n') newLine(n - 1);
+        return -1;
+    }
+
+    private int word(int start) {
+        int n = code.length();
+        int i = start + 1;
+        while (i < n && !endsWord(code, i)) i++;
+        TokenBuffer.Kind kind;
+        if (is(start, i, "int") || is(start, i, "double") || is(start, i, "String") || is(start, i, "boolean")) {
+            kind = TokenBuffer.Kind.TYPE;
+        } else if (code.charAt(start) >= '0' && code.charAt(start) <= '9') {
+            kind = TokenBuffer.Kind.NUMBER;
+        } else {
+            kind = TokenBuffer.Kind.IDENTIFIER;
+        }
+        tokens.add(kind, start, i, line);
+        return i;
+    }
+
+    private static boolean endsWord(String code, int i) {
+        char c = code.charAt(i);
+        if (isSpace(c) || c == '=' || c == ';' || c == '"') return true;
+        return c == '/' && i + 1 < code.length() && (code.charAt(i + 1) == '/' || code.charAt(i + 1) == '*');
+    }
+
+    private void error(int token, String message) {
+        errors.add("Line " + tokens.line(token) + ", column " + tokens.column(token) + ": " + message + ".");
+    }
+
+    private boolean is(int start, int end, String word) {
+        return end - start == word.length() && code.startsWith(word, start);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    public TokenBuffer getTokens() {
         return tokens;
     }
+
+    public ArrayList<String> getErrors() {
+        return errors;
+    }
 }
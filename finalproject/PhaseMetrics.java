@@ -0,0 +1,77 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * What one run of an analyzer cost: wall time, and the CPU time and bytes allocated by the
+ * thread that ran it (-1 where the JVM cannot measure them), with the lines, tokens and
+ * declarations it covered.
+ */
+public final class PhaseMetrics {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATION =
+            THREADS instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported() ? t : null;
+
+    public final String phase;
+    public final long wallNanos;
+    public final long cpuNanos;
+    public final long allocatedBytes;
+    public final int lines;
+    public final int tokens;
+    public final int declarations;
+
+    private PhaseMetrics(String phase, long wallNanos, long cpuNanos, long allocatedBytes, int lines, int tokens, int declarations) {
+        this.phase = phase;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.lines = lines;
+        this.tokens = tokens;
+        this.declarations = declarations;
+    }
+
+    /** Readings taken on the current thread when a phase starts, and again at {@link #stop}. */
+    public static final class Probe {
+        private long wall = System.nanoTime();
+        private long cpu = cpuTime();
+        private long allocated = allocatedBytes();
+
+        public Probe stop() {
+            wall = System.nanoTime() - wall;
+            cpu = cpu < 0 ? -1 : cpuTime() - cpu;
+            allocated = allocated < 0 ? -1 : allocatedBytes() - allocated;
+            return this;
+        }
+
+        public PhaseMetrics metrics(String phase, int lines, int tokens, int declarations) {
+            return new PhaseMetrics(phase, wall, cpu, allocated, lines, tokens, declarations);
+        }
+    }
+
+    public static Probe start() {
+        return new Probe();
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled()
+                ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATION != null && ALLOCATION.isThreadAllocatedMemoryEnabled()
+                ? ALLOCATION.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    public double linesPerSecond() {
+        return wallNanos == 0 ? 0 : lines * 1e9 / wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(phase).append(": ").append(String.format("%.1f ms", wallNanos / 1e6));
+        if (cpuNanos >= 0) sb.append(String.format(", CPU %.1f ms", cpuNanos / 1e6));
+        if (allocatedBytes >= 0) sb.append(String.format(", %.1f MB", allocatedBytes / 1048576.0));
+        sb.append(String.format(", %,d lines (%,.0f lines/s), %,d tokens, %,d declarations",
+                lines, linesPerSecond(), tokens, declarations));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,19 @@
+import java.util.concurrent.CancellationException;
+
+/**
+ * Progress callback for a running analyzer, called from the worker thread every
+ * {@link #INTERVAL} items.
+ */
+public interface Progress {
+    int INTERVAL = 1024;
+
+    Progress NONE = (done, total) -> {};
+
+    void update(int done, int total);
+
+    /** Reports progress and stops the analyzer if its thread was interrupted (cancelled). */
+    static void checkpoint(Progress progress, int done, int total) {
+        progress.update(done, total);
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+    }
+}
@@ -3,28 +3,35 @@ import java.util.ArrayList;
 public class SemanticAnalyzer {
     private ArrayList<String> errors = new ArrayList<>();
 
-    public void analyze(ArrayList<SyntaxAnalyzer.VariableDeclaration> decls) {
+    public void analyze(Ast ast) {
+        analyze(ast, Progress.NONE);
+    }
+
+    public void analyze(Ast ast, Progress progress) {
         errors.clear();
 
-        for (SyntaxAnalyzer.VariableDeclaration d : decls) {
-            if (d.type.equals("int")) {
-                if (!d.value.matches("\\d+")) {
-                    errors.add("Error: " + d.name + " should be an int value.");
+        for (int i = 0; i < ast.size(); i++) {
+            if (i % Progress.INTERVAL == 0) Progress.checkpoint(progress, i, ast.size());
+            CharSequence type = ast.type(i);
+            CharSequence value = ast.value(i);
+            if ("int".contentEquals(type)) {
+                if (!isDigits(value, 0, value.length())) {
+                    errors.add("Error: " + ast.name(i) + " should be an int value.");
                 }
             }
-            if (d.type.equals("double")) {
-                if (!d.value.matches("\\d+(\\.\\d+)?")) {
-                    errors.add("Error: " + d.name + " should be a double value.");
+            if ("double".contentEquals(type)) {
+                if (!isDecimal(value)) {
+                    errors.add("Error: " + ast.name(i) + " should be a double value.");
                 }
             }
-            if (d.type.equals("boolean")) {
-                if (!(d.value.equals("true") || d.value.equals("false"))) {
-                    errors.add("Error: " + d.name + " should be true/false.");
+            if ("boolean".contentEquals(type)) {
+                if (!("true".contentEquals(value) || "false".contentEquals(value))) {
+                    errors.add("Error: " + ast.name(i) + " should be true/false.");
                 }
             }
-            if (d.type.equals("String")) {
-                if (!d.value.startsWith("\"") || !d.value.endsWith("\"")) {
-                    errors.add("Error: " + d.name + " should be a String in quotes.");
+            if ("String".contentEquals(type)) {
+                if (value.length() == 0 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+                    errors.add("Error: " + ast.name(i) + " should be a String in quotes.");
                 }
             }
         }
@@ -34,6 +41,24 @@ public class SemanticAnalyzer {
         }
     }
 
+    /** Whether {@code s[from, to)} is one or more ASCII digits. */
+    private static boolean isDigits(CharSequence s, int from, int to) {
+        if (from >= to) return false;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    /** Digits, optionally followed by a '.' and more digits. */
+    private static boolean isDecimal(CharSequence s) {
+        int dot = 0;
+        while (dot < s.length() && s.charAt(dot) != '.') dot++;
+        if (dot == s.length()) return isDigits(s, 0, dot);
+        return isDigits(s, 0, dot) && isDigits(s, dot + 1, s.length());
+    }
+
     public ArrayList<String> getErrors() {
         return errors;
     }
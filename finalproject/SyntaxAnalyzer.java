@@ -1,44 +1,91 @@
 import java.util.ArrayList;
 
+/**
+ * LL(1) parser for programs made of declarations:
+ *
+ * <pre>
+ *   program     := declaration*
+ *   declaration := TYPE IDENTIFIER '=' value ';'
+ *   value       := IDENTIFIER | NUMBER | STRING
+ * </pre>
+ *
+ * Each token is looked at once, so parsing is linear in the number of tokens. An error is
+ * reported with the line and column of the offending token, after which the parser skips to
+ * the next ';' or type keyword and carries on.
+ */
 public class SyntaxAnalyzer {
-    public static class VariableDeclaration {
-        String type, name, value;
+    // The kinds allowed at each position of a declaration, as bit sets of Kind ordinals.
+    private static final int[] DECLARATION = {
+        bits(TokenBuffer.Kind.TYPE),
+        bits(TokenBuffer.Kind.IDENTIFIER),
+        bits(TokenBuffer.Kind.ASSIGN),
+        bits(TokenBuffer.Kind.IDENTIFIER, TokenBuffer.Kind.NUMBER, TokenBuffer.Kind.STRING),
+        bits(TokenBuffer.Kind.SEMICOLON)
+    };
+    private static final String[] EXPECTED = { "a type", "a variable name", "'='", "a value", "';'" };
 
-        VariableDeclaration(String type, String name, String value) {
-            this.type = type;
-            this.name = name;
-            this.value = value;
+    private final Ast ast = new Ast();
+    private final ArrayList<String> errors = new ArrayList<>();
+
+    public void analyze(TokenBuffer tokens) {
+        analyze(tokens, Progress.NONE);
+    }
+
+    public void analyze(TokenBuffer tokens, Progress progress) {
+        ast.reset(tokens);
+        errors.clear();
+
+        int statements = 0;
+        for (int i = 0, n = tokens.size(); i < n; ) {
+            if (++statements % Progress.INTERVAL == 0) Progress.checkpoint(progress, i, n);
+            int k = 0;
+            while (k < DECLARATION.length && i + k < n && (DECLARATION[k] & 1 << tokens.kind(i + k).ordinal()) != 0) k++;
+            if (k == DECLARATION.length) {
+                ast.addDeclaration(i);
+                i += k;
+            } else {
+                error(tokens, i + k, EXPECTED[k]);
+                i = recover(tokens, i + k, i);
+            }
         }
+    }
 
-        public String toString() {
-            return type + " " + name + " = " + value + ";";
+    private void error(TokenBuffer tokens, int at, String expected) {
+        if (at == tokens.size()) {
+            int line = tokens.size() == 0 ? 1 : tokens.line(at - 1);
+            errors.add("Line " + line + ": expected " + expected + " but the input ended.");
+        } else {
+            errors.add("Line " + tokens.line(at) + ", column " + tokens.column(at) + ": expected "
+                    + expected + " but found '" + tokens.view(at) + "'.");
         }
     }
 
-    private ArrayList<VariableDeclaration> declarations = new ArrayList<>();
-
-    public void analyze(ArrayList<LexicalAnalyzer.Token> tokens) {
-        declarations.clear();
-
-        // very simple check: TYPE IDENTIFIER ASSIGN IDENTIFIER SEMICOLON
-        for (int i = 0; i < tokens.size() - 4; i++) {
-            if (tokens.get(i).type.equals("TYPE") &&
-                tokens.get(i+1).type.equals("IDENTIFIER") &&
-                tokens.get(i+2).type.equals("ASSIGN") &&
-                tokens.get(i+3).type.equals("IDENTIFIER") &&
-                tokens.get(i+4).type.equals("SEMICOLON")) {
-
-                VariableDeclaration decl = new VariableDeclaration(
-                        tokens.get(i).value,
-                        tokens.get(i+1).value,
-                        tokens.get(i+3).value
-                );
-                declarations.add(decl);
-            }
+    /**
+     * Skips to where the next declaration can start: just past a ';', or at a type keyword.
+     * Moves past {@code statementStart} at least once so the parser always makes progress.
+     */
+    private static int recover(TokenBuffer tokens, int at, int statementStart) {
+        int i = Math.max(at, statementStart + 1);
+        if (at > statementStart && at < tokens.size() && tokens.kind(at) == TokenBuffer.Kind.TYPE) return at;
+        for (; i < tokens.size(); i++) {
+            TokenBuffer.Kind kind = tokens.kind(i);
+            if (kind == TokenBuffer.Kind.SEMICOLON) return i + 1;
+            if (kind == TokenBuffer.Kind.TYPE) return i;
         }
+        return i;
+    }
+
+    private static int bits(TokenBuffer.Kind... kinds) {
+        int bits = 0;
+        for (TokenBuffer.Kind k : kinds) bits |= 1 << k.ordinal();
+        return bits;
+    }
+
+    public Ast getAst() {
+        return ast;
     }
 
-    public ArrayList<VariableDeclaration> getDeclarations() {
-        return declarations;
+    public ArrayList<String> getErrors() {
+        return errors;
     }
 }
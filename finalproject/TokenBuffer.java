@@ -0,0 +1,85 @@
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Tokens found by {@link LexicalAnalyzer}, stored in parallel arrays (kind, start, length
+ * and line) rather than as one object per token. Token text is a view of the source.
+ * Columns come from a table of where each line starts.
+ */
+public class TokenBuffer {
+    public enum Kind { TYPE, IDENTIFIER, NUMBER, STRING, ASSIGN, SEMICOLON }
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String source = "";
+    private int size;
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int lineCount = 1;
+    private int[] lineStarts = new int[INITIAL_CAPACITY];
+
+    public void reset(String source) {
+        this.source = source;
+        size = 0;
+        lineCount = 1;
+    }
+
+    /** Records that line {@link #lineCount()} + 1 starts at {@code start}. */
+    public void addLine(int start) {
+        if (lineCount == lineStarts.length) lineStarts = Arrays.copyOf(lineStarts, 2 * lineCount);
+        lineStarts[lineCount++] = start;
+    }
+
+    public void add(Kind kind, int start, int end, int line) {
+        if (size == kinds.length) {
+            int capacity = 2 * size;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        starts[size] = start;
+        lengths[size] = end - start;
+        lines[size] = line;
+        size++;
+    }
+
+    public String source() { return source; }
+    public int size() { return size; }
+
+    public Kind kind(int i) { return KINDS[kinds[i]]; }
+    public int start(int i) { return starts[i]; }
+    public int end(int i) { return starts[i] + lengths[i]; }
+    public int line(int i) { return lines[i]; }
+    public int column(int i) { return starts[i] - lineStarts[lines[i] - 1] + 1; }
+    public int lineCount() { return lineCount; }
+
+    public String text(int i) {
+        return source.substring(starts[i], starts[i] + lengths[i]);
+    }
+
+    public CharSequence view(int i) {
+        return CharBuffer.wrap(source, starts[i], starts[i] + lengths[i]);
+    }
+
+    public Cursor cursor() { return new Cursor(); }
+
+    /** Walks the buffer in order. Call {@link #next()} before reading the first token. */
+    public final class Cursor {
+        private int index = -1;
+
+        public boolean next() { return ++index < size; }
+        public int index() { return index; }
+        public Kind kind() { return TokenBuffer.this.kind(index); }
+        public int line() { return lines[index]; }
+        public CharSequence view() { return TokenBuffer.this.view(index); }
+        public String text() { return TokenBuffer.this.text(index); }
+
+        @Override
+        public String toString() { return kind() + " : " + view(); }
+    }
+}
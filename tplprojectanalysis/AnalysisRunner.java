@@ -0,0 +1,80 @@
+import java.util.concurrent.CancellationException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import javax.swing.*;
+
+/**
+ * Runs one analysis phase at a time on a {@link TaskRunner}, with progress shown as lines
+ * done out of the total. The phase writes its output from the background to the
+ * {@link ResultSink} it is given, which lets nothing through once the run is over, so a
+ * cancelled phase cannot overwrite what came after it.
+ */
+public class AnalysisRunner {
+    private final TaskRunner runner;
+    private final ResultSink sink;
+
+    public AnalysisRunner(JProgressBar progressBar, JButton cancelBtn, ResultSink sink, AbstractButton... lockedButtons) {
+        this.runner = new TaskRunner(progressBar, cancelBtn, " lines", lockedButtons);
+        this.sink = sink;
+    }
+
+    public boolean isRunning() { return runner.isRunning(); }
+
+    public void cancel() { runner.cancel(); }
+
+    /**
+     * Runs {@code work} in the background and hands its result to {@code onDone} on the EDT.
+     * {@code work} gets the progress callback and the sink for this run. While it runs, the
+     * analysis buttons are disabled. Afterwards they go back to their previous state, before
+     * {@code onDone} gets a chance to change them.
+     */
+    public <T> void run(String name, BiFunction<Progress, ResultSink, T> work, Consumer<T> onDone) {
+        if (runner.isRunning()) return;
+        RunSink out = new RunSink(sink);
+        runner.run(name, updates -> work.apply(updates::update, out), result -> {
+            out.close();
+            sink.flush();
+            onDone.accept(result);
+        }, message -> {
+            out.close();
+            sink.reset();
+            sink.append(message + "\n");
+            sink.flush();
+        });
+    }
+
+    /**
+     * The sink one run writes to. Once the run is over it drops what comes in, and a phase
+     * still writing after it was cancelled is stopped as it would be at a checkpoint.
+     */
+    private static final class RunSink implements ResultSink {
+        private final ResultSink target;
+        private boolean closed;
+
+        RunSink(ResultSink target) { this.target = target; }
+
+        @Override
+        public synchronized void reset() {
+            checkOpen();
+            target.reset();
+        }
+
+        @Override
+        public synchronized void append(CharSequence text) {
+            checkOpen();
+            target.append(text);
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (!closed) target.flush();
+        }
+
+        /** Lets nothing more through; a write in progress finishes first. */
+        synchronized void close() { closed = true; }
+
+        private void checkOpen() {
+            if (closed) throw new CancellationException();
+        }
+    }
+}
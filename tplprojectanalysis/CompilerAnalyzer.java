@@ -2,7 +2,7 @@ import java.awt.*;
 import javax.swing.*;
 
 public class CompilerAnalyzer extends JFrame {
-    private final JTextArea codeArea = new JTextArea();
+    private final TplCodeEditor codeArea = new TplCodeEditor();
     private final JTextArea resultArea = new JTextArea();
 
     private final JButton openBtn = new JButton("Open File");
@@ -10,10 +10,19 @@ public class CompilerAnalyzer extends JFrame {
     private final JButton synBtn  = new JButton("Syntax Analysis");
     private final JButton semBtn  = new JButton("Semantic Analysis");
     private final JButton clearBtn = new JButton("Clear");
+    private final JButton cancelBtn = new JButton("Cancel");
+    private final JProgressBar progressBar = new JProgressBar();
+    private final JCheckBox liveBox = new JCheckBox("Live Analysis");
+    private final JLabel metricsLabel = new JLabel();
 
-    private final Lexer lexer = new Lexer(codeArea, resultArea, lexBtn, synBtn);
-    private final Parser parser = new Parser(codeArea, resultArea, synBtn, semBtn);
-    private final SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(codeArea, resultArea);
+    private final TextAreaResultSink sink = new TextAreaResultSink(resultArea);
+    private final Pipeline pipeline = UIComponents.newPipeline();
+    private AnalysisResult result;
+    // Counts edits, so a phase that finishes after one can tell its result is stale.
+    private int edits;
+    private final AnalysisRunner runner = new AnalysisRunner(progressBar, cancelBtn, sink,
+            openBtn, lexBtn, synBtn, semBtn, clearBtn, liveBox);
+    private final LiveAnalysis live = new LiveAnalysis(codeArea, sink);
 
     public CompilerAnalyzer() {
         initUI();
@@ -38,38 +47,89 @@ public class CompilerAnalyzer extends JFrame {
         split.setDividerLocation(620);
         split.setResizeWeight(0.5);
         add(split, BorderLayout.CENTER);
+        add(UIComponents.createStatusPanel(progressBar, cancelBtn, liveBox, metricsLabel), BorderLayout.SOUTH);
 
         disableAnalysisButtons();
     }
 
     private void setupActions() {
+        UIComponents.onEdit(codeArea, this::codeEdited);
         openBtn.addActionListener(e -> UIComponents.openFile(codeArea, resultArea, this::enableAnalysisButtons));
         lexBtn.addActionListener(e -> {
-            lexer.performLexical();
-            if (lexer.isSuccess()) {
-                parser.enableButton();
-                disableAnalysisButtonsExceptLex();
-            }
+            CharSequence src = codeArea.snapshot();
+            int version = edits;
+            runner.run("Lexical analysis", (progress, out) -> {
+                AnalysisResult r = pipeline.lex(src, progress);
+                Report.lexical(r, out);
+                return r;
+            }, r -> {
+                if (version != edits) {
+                    resetAnalysis();
+                    return;
+                }
+                result = r;
+                UIComponents.showMetrics(metricsLabel, r, Diagnostic.Phase.LEXICAL);
+                if (r.passed(Diagnostic.Phase.LEXICAL)) disableAnalysisButtonsExceptLex();
+            });
         });
         synBtn.addActionListener(e -> {
-            parser.performSyntax();
-            if (parser.isSuccess()) {
-                semanticAnalyzer.enableButton();
-            }
+            AnalysisResult r = result;
+            int version = edits;
+            runner.run("Syntax analysis", (progress, out) -> {
+                Report.syntax(pipeline.parse(r, progress), out);
+                return r.passed(Diagnostic.Phase.SYNTAX);
+            }, ok -> {
+                if (version != edits) {
+                    resetAnalysis();
+                    return;
+                }
+                UIComponents.showMetrics(metricsLabel, r, Diagnostic.Phase.SYNTAX);
+                if (ok) {
+                    synBtn.setEnabled(false);
+                    semBtn.setEnabled(true);
+                }
+            });
+        });
+        semBtn.addActionListener(e -> {
+            AnalysisResult r = result;
+            int version = edits;
+            runner.run("Semantic analysis", (progress, out) -> {
+                Report.semantic(pipeline.checkSemantics(r, progress), out);
+                return null;
+            }, ignored -> {
+                if (version != edits) resetAnalysis();
+                else UIComponents.showMetrics(metricsLabel, r, Diagnostic.Phase.SEMANTIC);
+            });
+        });
+        liveBox.addActionListener(e -> {
+            live.setEnabled(liveBox.isSelected());
+            if (live.isEnabled()) disableAnalysisButtons();
+            else if (codeArea.getDocument().getLength() > 0) enableAnalysisButtons();
         });
-        semBtn.addActionListener(e -> semanticAnalyzer.performSemantic());
         clearBtn.addActionListener(e -> {
             codeArea.setText("");
             resultArea.setText("");
-            lexer.clear();
-            parser.clear();
-            semanticAnalyzer.clear();
+            metricsLabel.setText(" ");
+            result = null;
             disableAnalysisButtons();
         });
     }
 
+    private void codeEdited() {
+        edits++;
+        resetAnalysis();
+    }
+
+    /** Drops the result, since it no longer matches the code, so only lexical analysis can start. */
+    private void resetAnalysis() {
+        result = null;
+        if (codeArea.getDocument().getLength() > 0) enableAnalysisButtons();
+        else disableAnalysisButtons();
+    }
+
     private void enableAnalysisButtons() {
-        lexBtn.setEnabled(true);
+        // In live mode the report is kept up to date as the code is edited.
+        lexBtn.setEnabled(!live.isEnabled());
         synBtn.setEnabled(false);
         semBtn.setEnabled(false);
     }
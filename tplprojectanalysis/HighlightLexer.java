@@ -0,0 +1,41 @@
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.Segment;
+
+/**
+ * Styles a line by what {@link Lexer} makes of it, for the {@link SyntaxHighlighter}. TPL's
+ * lexer carries nothing across lines, so every line starts and ends in the same state.
+ */
+public class HighlightLexer implements SyntaxHighlighter.LineLexer {
+    private final Lexer lexer = new Lexer();
+    private final TokenStream tokens = new TokenStream("");
+    private final List<Diagnostic> ignored = new ArrayList<>();
+    private final Utils.Literal literal = new Utils.Literal();
+
+    @Override
+    public int lex(Segment line, int state, SyntaxHighlighter.TokenStyles out) {
+        tokens.reset(line);
+        lexer.lexLine(line, 0, line.length(), 1, tokens, ignored);
+        ignored.clear();
+        // The lexer turns everything but whitespace and comments into tokens.
+        for (int i = 0; i < tokens.size(); i++) out.style(tokens.start(i), tokens.end(i), styleOf(i));
+        return START;
+    }
+
+    private AttributeSet styleOf(int token) {
+        switch (tokens.kind(token)) {
+            case DATA_TYPE: return SyntaxHighlighter.TYPE;
+            case IDENTIFIER: return SyntaxHighlighter.IDENTIFIER;
+            case ASSIGNMENT_OPERATOR:
+            case DELIMITER: return SyntaxHighlighter.OPERATOR;
+            default:
+                if (!tokens.literal(token, literal)) return SyntaxHighlighter.INVALID;
+                switch (literal.type) {
+                    case STRING: case CHAR: return SyntaxHighlighter.STRING;
+                    case BOOLEAN: return SyntaxHighlighter.BOOLEAN;
+                    default: return SyntaxHighlighter.NUMBER;
+                }
+        }
+    }
+}
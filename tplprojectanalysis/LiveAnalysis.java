@@ -0,0 +1,98 @@
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Re-analyzes the editor as the user types. Each document edit is mapped to the range of
+ * lines it replaced and passed to an {@link IncrementalAnalyzer}, so only those lines are
+ * checked again. The report in the sink is rebuilt at most every {@link #REFRESH_MS} ms.
+ */
+public class LiveAnalysis implements DocumentListener {
+    static final int REFRESH_MS = 150;
+
+    private final JTextComponent codeArea;
+    private final ResultSink sink;
+    private final IncrementalAnalyzer analyzer = new IncrementalAnalyzer();
+    private final Timer refresh = new Timer(REFRESH_MS, e -> render());
+    // JTextComponent.read() installs a new document, so follow the "document" property.
+    private final PropertyChangeListener documentSwap = e -> {
+        ((Document) e.getOldValue()).removeDocumentListener(this);
+        attach((Document) e.getNewValue());
+    };
+
+    private boolean enabled;
+
+    public LiveAnalysis(JTextComponent codeArea, ResultSink sink) {
+        this.codeArea = codeArea;
+        this.sink = sink;
+        refresh.setRepeats(false);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public void setEnabled(boolean on) {
+        if (on == enabled) return;
+        enabled = on;
+        if (on) {
+            codeArea.addPropertyChangeListener("document", documentSwap);
+            attach(codeArea.getDocument());
+        } else {
+            codeArea.removePropertyChangeListener("document", documentSwap);
+            codeArea.getDocument().removeDocumentListener(this);
+            refresh.stop();
+        }
+    }
+
+    private void attach(Document doc) {
+        doc.addDocumentListener(this);
+        analyzer.reset(TplCodeEditor.textOf(doc));
+        refresh.restart();
+    }
+
+    @Override public void insertUpdate(DocumentEvent e) { update(e); }
+    @Override public void removeUpdate(DocumentEvent e) { update(e); }
+    @Override public void changedUpdate(DocumentEvent e) {}
+
+    private void update(DocumentEvent e) {
+        Document doc = e.getDocument();
+        Element root = doc.getDefaultRootElement();
+        EditedLines edited = EditedLines.of(e);
+
+        List<String> lines = new ArrayList<>(edited.added);
+        try {
+            for (int i = edited.first; i < edited.first + edited.added; i++) {
+                Element line = root.getElement(i);
+                // Every line element ends with a newline, the last one with an implicit one.
+                int start = line.getStartOffset();
+                lines.add(doc.getText(start, line.getEndOffset() - 1 - start));
+            }
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+        analyzer.replaceLines(edited.first, edited.removed, lines);
+        refresh.restart();
+    }
+
+    private void render() {
+        if (!enabled) return;
+        List<Diagnostic> errors = analyzer.diagnostics();
+        sink.reset();
+        if (errors.isEmpty()) {
+            sink.append("Live Analysis: no errors.\n\nSymbol Table:\n\n");
+            Map<String, DataType> table = analyzer.symbolTable();
+            table.forEach((n, t) -> sink.append(String.format("  %-15s → %s\n", n, t)));
+        } else {
+            sink.append("Live Analysis: " + errors.size() + " error(s) in " + analyzer.lineCount() + " lines.\n\n");
+            errors.forEach(d -> sink.append(d + "\n"));
+        }
+        sink.flush();
+    }
+}
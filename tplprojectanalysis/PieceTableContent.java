@@ -0,0 +1,597 @@
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * Document content kept as a piece table. Text is appended to buffers of {@link #BLOCK}
+ * chars and never moved or changed after; the content is the sequence of pieces, each a
+ * span of one buffer, kept as columns like {@link TokenStream}. Inserting or removing text
+ * splices the pieces and never copies the rest of the text, and loading a file appends it
+ * buffer by buffer. Each piece counts its newlines, which keeps a line index.
+ *
+ * <p>Since written chars never change, {@link #snapshot} copies only the pieces. The
+ * analyzers read the snapshot on another thread while the editor goes on changing.
+ *
+ * <p>Positions behave as in {@link javax.swing.text.GapContent}: one at an insertion point
+ * moves with the inserted text unless it is at 0, and those inside removed text collapse to
+ * its start. They are kept the same way, as marks sorted around a gap that is virtual here.
+ */
+public class PieceTableContent implements AbstractDocument.Content {
+    static final int BLOCK = 1 << 16;
+    private static final char[] EMPTY = {};
+    private static final int[] EMPTY_COLUMN = {};
+
+    private char[][] blocks = new char[4][];
+    private int blockCount;
+    // Chars written to the last block; BLOCK when a new one is needed.
+    private int fill = BLOCK;
+
+    private int[] pieceBlock = new int[16];
+    private int[] pieceStart = new int[16];
+    private int[] pieceLength = new int[16];
+    private int[] pieceLines = new int[16];
+    private int pieces;
+    // Offset and newlines before each piece, up to date for pieces [0, valid].
+    private int[] offsets = new int[17];
+    private int[] linesBefore = new int[17];
+    private int valid;
+    private int length;
+
+    // Marks sorted by index, with a gap at the last insertion. A mark's index is its offset if
+    // below gapStart, else its offset plus gapSize.
+    private Mark[] marks = new Mark[16];
+    private int markGapStart, markGapEnd = marks.length;
+    private int gapStart;
+    private long gapSize = 1L << 62;
+    private final ReferenceQueue<Sticky> queue = new ReferenceQueue<>();
+    private int unusedMarks;
+
+    public PieceTableContent() {
+        // Content always ends in the newline that ends the document's last line.
+        append(0, "\n");
+    }
+
+    @Override
+    public int length() { return length; }
+
+    /** The number of lines, one more than the number of '\n' before the final one. */
+    public int lineCount() {
+        validate();
+        return linesBefore[pieces];
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where < 0 || where >= length) throw new BadLocationException("Invalid insert", where);
+        append(where, str);
+        marksInserted(where, str.length());
+        return new Edit(where, str.length(), true);
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems >= length) throw new BadLocationException("Invalid remove", where + nitems);
+        Edit edit = new Edit(where, nitems, false);
+        edit.take();
+        return edit;
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        if (len == 0) return "";
+        int k = find(where);
+        int in = where - offsets[k];
+        if (in + len <= pieceLength[k]) return new String(blocks[pieceBlock[k]], pieceStart[k] + in, len);
+        char[] out = new char[len];
+        copy(where, len, out);
+        return new String(out);
+    }
+
+    /** Points {@code txt} into the buffer when the range is one piece or a partial return is allowed, else copies. */
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        checkRange(where, len);
+        if (len == 0) {
+            txt.array = EMPTY;
+            txt.offset = txt.count = 0;
+            return;
+        }
+        int k = find(where);
+        int in = where - offsets[k];
+        if (in + len <= pieceLength[k] || txt.isPartialReturn()) {
+            txt.array = blocks[pieceBlock[k]];
+            txt.offset = pieceStart[k] + in;
+            txt.count = Math.min(len, pieceLength[k] - in);
+        } else {
+            txt.array = new char[len];
+            txt.offset = 0;
+            txt.count = len;
+            copy(where, len, txt.array);
+        }
+    }
+
+    /** An immutable view of {@code [where, where + len)} as it is now. */
+    public Text snapshot(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        if (len == 0) return new Text(blocks, EMPTY_COLUMN, EMPTY_COLUMN, new int[2], new int[2], 0);
+        int first = find(where), last = find(where + len - 1);
+        int n = last - first + 1;
+        int[] block = Arrays.copyOfRange(pieceBlock, first, last + 1);
+        int[] start = Arrays.copyOfRange(pieceStart, first, last + 1);
+        int[] textOffsets = new int[n + 1];
+        int[] textLines = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int k = first + i;
+            int from = Math.max(where, offsets[k]), to = Math.min(where + len, offsets[k + 1]);
+            start[i] += from - offsets[k];
+            textOffsets[i + 1] = to - where;
+            // Only the end pieces can be cut short.
+            int lines = to - from == pieceLength[k] ? pieceLines[k] : countLines(blocks[block[i]], start[i], start[i] + to - from);
+            textLines[i + 1] = textLines[i] + lines;
+        }
+        return new Text(blocks, block, start, textOffsets, textLines, n);
+    }
+
+    /**
+     * Text as it was when {@link #snapshot} was taken. Reading it is safe on any thread and
+     * costs a binary search only when it leaves the piece it read last.
+     */
+    public static final class Text implements LineIndexed {
+        private static final Span NONE = new Span(EMPTY, 0, 0, 0);
+
+        private final Span[] spans;
+        private final int[] offsets, lines;
+        private final int pieces;
+        // The piece read last. Spans never change, so a thread that sees another's is still right.
+        private Span last = NONE;
+
+        Text(char[][] blocks, int[] block, int[] start, int[] offsets, int[] lines, int pieces) {
+            this.spans = new Span[pieces];
+            for (int k = 0; k < pieces; k++) spans[k] = new Span(blocks[block[k]], offsets[k], offsets[k + 1], start[k] - offsets[k]);
+            this.offsets = offsets;
+            this.lines = lines;
+            this.pieces = pieces;
+        }
+
+        @Override
+        public int length() { return offsets[pieces]; }
+
+        @Override
+        public int lineCount() { return lines[pieces] + 1; }
+
+        @Override
+        public char charAt(int index) {
+            Span s = last;
+            if (index < s.from || index >= s.to) {
+                if (index < 0 || index >= length()) throw new IndexOutOfBoundsException("index " + index + ", length " + length());
+                last = s = spans[pieceAt(index)];
+            }
+            return s.chars[index + s.shift];
+        }
+
+        /** Copies the chars; the analyzers only take short spans such as token text. */
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to > length() || from > to) throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + length());
+            if (from == to) return "";
+            int k = pieceAt(from);
+            Span s = spans[k];
+            if (to <= s.to) return new String(s.chars, from + s.shift, to - from);
+            char[] out = new char[to - from];
+            for (int at = from; at < to; ) {
+                s = spans[k++];
+                int n = Math.min(to, s.to) - at;
+                System.arraycopy(s.chars, at + s.shift, out, at - from, n);
+                at += n;
+            }
+            return new String(out);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+
+        private int pieceAt(int index) {
+            int lo = 0, hi = pieces - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (offsets[mid] <= index) lo = mid;
+                else hi = mid - 1;
+            }
+            return lo;
+        }
+
+        /** Chars {@code [from, to)} of the text, found at {@code index + shift} in {@code chars}. */
+        private record Span(char[] chars, int from, int to, int shift) {}
+    }
+
+    // --- Pieces ---
+
+    /** Writes {@code str} to the buffers as pieces at {@code where}, extending the piece before when it ends where the buffer does. */
+    private void append(int where, String str) {
+        int n = str.length();
+        int k = split(where);
+        int done = 0;
+        if (k > 0 && fill < BLOCK && pieceBlock[k - 1] == blockCount - 1 && pieceStart[k - 1] + pieceLength[k - 1] == fill) {
+            int m = Math.min(n, BLOCK - fill);
+            pieceLines[k - 1] += write(str, 0, m);
+            pieceLength[k - 1] += m;
+            valid = Math.min(valid, k - 1);
+            done = m;
+        }
+        while (done < n) {
+            if (fill == BLOCK) newBlock();
+            int m = Math.min(n - done, BLOCK - fill);
+            openPieces(k, 1);
+            pieceBlock[k] = blockCount - 1;
+            pieceStart[k] = fill;
+            pieceLength[k] = m;
+            pieceLines[k] = write(str, done, m);
+            k++;
+            done += m;
+        }
+        length += n;
+    }
+
+    private int write(String str, int from, int n) {
+        char[] buf = blocks[blockCount - 1];
+        str.getChars(from, from + n, buf, fill);
+        fill += n;
+        return countLines(buf, fill - n, fill);
+    }
+
+    private void newBlock() {
+        if (blockCount == blocks.length) blocks = Arrays.copyOf(blocks, 2 * blockCount);
+        blocks[blockCount++] = new char[BLOCK];
+        fill = 0;
+    }
+
+    /** Removes the pieces of {@code [where, where + n)} and returns them. */
+    private Pieces cut(int where, int n) {
+        int first = split(where);
+        int end = split(where + n);
+        Pieces cut = new Pieces(end - first, n);
+        System.arraycopy(pieceBlock, first, cut.block, 0, cut.count);
+        System.arraycopy(pieceStart, first, cut.start, 0, cut.count);
+        System.arraycopy(pieceLength, first, cut.length, 0, cut.count);
+        System.arraycopy(pieceLines, first, cut.lines, 0, cut.count);
+        closePieces(first, cut.count);
+        length -= n;
+        return cut;
+    }
+
+    /** Puts back pieces taken by {@link #cut}. */
+    private void paste(int where, Pieces p) {
+        int k = split(where);
+        openPieces(k, p.count);
+        System.arraycopy(p.block, 0, pieceBlock, k, p.count);
+        System.arraycopy(p.start, 0, pieceStart, k, p.count);
+        System.arraycopy(p.length, 0, pieceLength, k, p.count);
+        System.arraycopy(p.lines, 0, pieceLines, k, p.count);
+        length += p.chars;
+    }
+
+    /** Makes {@code offset} the start of a piece and returns that piece, or {@code pieces} at the end. */
+    private int split(int offset) {
+        if (offset == length) return pieces;
+        int k = find(offset);
+        int in = offset - offsets[k];
+        if (in == 0) return k;
+        openPieces(k + 1, 1);
+        int leftLines = countLines(blocks[pieceBlock[k]], pieceStart[k], pieceStart[k] + in);
+        pieceBlock[k + 1] = pieceBlock[k];
+        pieceStart[k + 1] = pieceStart[k] + in;
+        pieceLength[k + 1] = pieceLength[k] - in;
+        pieceLines[k + 1] = pieceLines[k] - leftLines;
+        pieceLength[k] = in;
+        pieceLines[k] = leftLines;
+        valid = Math.min(valid, k);
+        return k + 1;
+    }
+
+    /** The piece holding {@code offset}, which must be below the length. */
+    private int find(int offset) {
+        validate();
+        int lo = 0, hi = pieces - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= offset) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private void validate() {
+        for (int k = valid; k < pieces; k++) {
+            offsets[k + 1] = offsets[k] + pieceLength[k];
+            linesBefore[k + 1] = linesBefore[k] + pieceLines[k];
+        }
+        valid = pieces;
+    }
+
+    private void openPieces(int k, int n) {
+        if (pieces + n > pieceBlock.length) {
+            int size = Math.max(2 * pieceBlock.length, pieces + n);
+            pieceBlock = Arrays.copyOf(pieceBlock, size);
+            pieceStart = Arrays.copyOf(pieceStart, size);
+            pieceLength = Arrays.copyOf(pieceLength, size);
+            pieceLines = Arrays.copyOf(pieceLines, size);
+            offsets = Arrays.copyOf(offsets, size + 1);
+            linesBefore = Arrays.copyOf(linesBefore, size + 1);
+        }
+        int tail = pieces - k;
+        System.arraycopy(pieceBlock, k, pieceBlock, k + n, tail);
+        System.arraycopy(pieceStart, k, pieceStart, k + n, tail);
+        System.arraycopy(pieceLength, k, pieceLength, k + n, tail);
+        System.arraycopy(pieceLines, k, pieceLines, k + n, tail);
+        pieces += n;
+        valid = Math.min(valid, k);
+    }
+
+    private void closePieces(int k, int n) {
+        int tail = pieces - k - n;
+        System.arraycopy(pieceBlock, k + n, pieceBlock, k, tail);
+        System.arraycopy(pieceStart, k + n, pieceStart, k, tail);
+        System.arraycopy(pieceLength, k + n, pieceLength, k, tail);
+        System.arraycopy(pieceLines, k + n, pieceLines, k, tail);
+        pieces -= n;
+        valid = Math.min(valid, k);
+    }
+
+    private void copy(int where, int len, char[] out) {
+        for (int k = find(where), at = where; at < where + len; k++) {
+            int n = Math.min(where + len, offsets[k + 1]) - at;
+            System.arraycopy(blocks[pieceBlock[k]], pieceStart[k] + at - offsets[k], out, at - where, n);
+            at += n;
+        }
+    }
+
+    private void checkRange(int where, int len) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length) throw new BadLocationException("Invalid range", where + len);
+    }
+
+    private static int countLines(char[] buf, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\n') n++;
+        }
+        return n;
+    }
+
+    /** Pieces out of the text, kept by an edit so that undoing or redoing it copies no chars. */
+    private static final class Pieces {
+        final int count, chars;
+        final int[] block, start, length, lines;
+
+        Pieces(int count, int chars) {
+            this.count = count;
+            this.chars = chars;
+            block = new int[count];
+            start = new int[count];
+            length = new int[count];
+            lines = new int[count];
+        }
+    }
+
+    /**
+     * An insertion or removal. Like GapContent's, it puts the positions that were in the text
+     * back where they were when it puts the text back.
+     */
+    private final class Edit extends AbstractUndoableEdit {
+        private final int offset, length;
+        private final boolean insertion;
+        // The text while it is out of the content, and the marks that were in it.
+        private Pieces out;
+        private Mark[] moved;
+        private int[] movedOffsets;
+
+        Edit(int offset, int length, boolean insertion) {
+            this.offset = offset;
+            this.length = length;
+            this.insertion = insertion;
+        }
+
+        @Override
+        public void undo() {
+            super.undo();
+            if (insertion) take();
+            else put();
+        }
+
+        @Override
+        public void redo() {
+            super.redo();
+            if (insertion) put();
+            else take();
+        }
+
+        void take() {
+            moveGap(offset);
+            int first = offset == 0 ? 0 : markIndex(offset + gapSize);
+            int end = markIndex(offset + length + gapSize + 1);
+            moved = new Mark[end - first];
+            movedOffsets = new int[moved.length];
+            for (int i = 0; i < moved.length; i++) {
+                moved[i] = markAt(first + i);
+                movedOffsets[i] = offsetOf(moved[i].index);
+            }
+            out = cut(offset, length);
+            marksRemoved(offset, length);
+        }
+
+        private void put() {
+            paste(offset, out);
+            marksInserted(offset, length);
+            int end = offset + length;
+            for (int i = 0; i < moved.length; i++) {
+                moved[i].index = movedOffsets[i] == end ? end + gapSize : movedOffsets[i];
+            }
+            sortMarks(offset == 0 ? 0 : markIndex(offset), markIndex(end + gapSize + 1));
+            out = null;
+            moved = null;
+            movedOffsets = null;
+        }
+    }
+
+    // --- Positions ---
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        if (offset < 0 || offset > length) throw new BadLocationException("Invalid position", offset);
+        while (queue.poll() != null) unusedMarks++;
+        if (unusedMarks > Math.max(5, markCount() / 10)) removeUnusedMarks();
+
+        long index = offset < gapStart ? offset : offset + gapSize;
+        int i = markIndex(index);
+        if (i < markCount()) {
+            Mark m = markAt(i);
+            Sticky shared;
+            if (m.index == index && (shared = m.get()) != null) return shared;
+        }
+        Sticky position = new Sticky();
+        position.mark = new Mark(index, position, queue);
+        insertMark(i, position.mark);
+        return position;
+    }
+
+    private final class Sticky implements Position {
+        Mark mark;
+
+        @Override
+        public int getOffset() { return offsetOf(mark.index); }
+
+        @Override
+        public String toString() { return Integer.toString(getOffset()); }
+    }
+
+    /** Where a position is. It goes once the position is no longer used. */
+    private static final class Mark extends WeakReference<Sticky> {
+        long index;
+
+        Mark(long index, Sticky position, ReferenceQueue<Sticky> queue) {
+            super(position, queue);
+            this.index = index;
+        }
+    }
+
+    private int offsetOf(long index) {
+        return (int) (index < gapStart ? index : Math.max(index - gapSize, 0));
+    }
+
+    private void marksInserted(int where, int n) {
+        moveGap(where);
+        gapStart += n;
+        gapSize -= n;
+    }
+
+    private void marksRemoved(int where, int n) {
+        moveGap(where);
+        long end = where + n + gapSize;
+        for (int i = markIndex(where + gapSize), count = markCount(); i < count; i++) {
+            Mark m = markAt(i);
+            if (m.index > end) break;
+            m.index = end;
+        }
+        gapSize += n;
+        resetMarksAtZero();
+    }
+
+    /** Moves the gap to {@code offset}, so that the marks at and after it follow an insertion there. */
+    private void moveGap(int offset) {
+        if (offset > gapStart) {
+            long newEnd = offset + gapSize;
+            for (int i = markIndex(gapStart + gapSize), n = markCount(); i < n; i++) {
+                Mark m = markAt(i);
+                if (m.index >= newEnd) break;
+                m.index -= gapSize;
+            }
+        } else if (offset < gapStart) {
+            for (int i = markIndex(offset), n = markCount(); i < n; i++) {
+                Mark m = markAt(i);
+                if (m.index >= gapStart) break;
+                m.index += gapSize;
+            }
+        }
+        gapStart = offset;
+        resetMarksAtZero();
+    }
+
+    /** Keeps positions at 0 there when text is inserted at 0. */
+    private void resetMarksAtZero() {
+        if (gapStart != 0) return;
+        for (int i = 0, n = markCount(); i < n; i++) {
+            Mark m = markAt(i);
+            if (m.index > gapSize) break;
+            m.index = 0;
+        }
+    }
+
+    private int markCount() { return marks.length - (markGapEnd - markGapStart); }
+
+    private Mark markAt(int i) { return marks[i < markGapStart ? i : i + markGapEnd - markGapStart]; }
+
+    /** The first mark whose index is at least {@code index}. */
+    private int markIndex(long index) {
+        int lo = 0, hi = markCount();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (markAt(mid).index < index) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void insertMark(int i, Mark m) {
+        if (markGapStart == markGapEnd) {
+            Mark[] bigger = new Mark[2 * marks.length];
+            int tail = marks.length - markGapEnd;
+            System.arraycopy(marks, 0, bigger, 0, markGapStart);
+            System.arraycopy(marks, markGapEnd, bigger, bigger.length - tail, tail);
+            markGapEnd = bigger.length - tail;
+            marks = bigger;
+        }
+        int gap = markGapEnd - markGapStart;
+        if (i < markGapStart) {
+            System.arraycopy(marks, i, marks, i + gap, markGapStart - i);
+        } else if (i > markGapStart) {
+            System.arraycopy(marks, markGapEnd, marks, markGapStart, i - markGapStart);
+        }
+        markGapStart = i;
+        markGapEnd = i + gap;
+        marks[markGapStart++] = m;
+    }
+
+    /** Sorts marks {@code [from, to)} by index, after an undo has put some back. */
+    private void sortMarks(int from, int to) {
+        if (to - from < 2) return;
+        Mark[] range = new Mark[to - from];
+        for (int i = 0; i < range.length; i++) range[i] = markAt(from + i);
+        Arrays.sort(range, (a, b) -> Long.compare(a.index, b.index));
+        for (int i = 0; i < range.length; i++) {
+            int at = from + i;
+            marks[at < markGapStart ? at : at + markGapEnd - markGapStart] = range[i];
+        }
+    }
+
+    private void removeUnusedMarks() {
+        int n = markCount();
+        Mark[] kept = new Mark[Math.max(16, marks.length)];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            Mark m = markAt(i);
+            if (m.get() != null) kept[count++] = m;
+        }
+        marks = kept;
+        markGapStart = count;
+        markGapEnd = kept.length;
+        unusedMarks = 0;
+    }
+}
@@ -0,0 +1,59 @@
+import javax.swing.*;
+
+/**
+ * Feeds a JTextArea from any thread. Text is collected in a buffer and moved into the area
+ * in one chunk on the EDT, at most once every {@link #REFRESH_MS} ms. 100k diagnostics then
+ * cost a handful of document updates instead of one each.
+ */
+public class TextAreaResultSink implements ResultSink {
+    public static final int REFRESH_MS = 100;
+
+    private final JTextArea area;
+    private final Timer timer;
+    private final StringBuilder pending = new StringBuilder();
+    private boolean replace;
+
+    public TextAreaResultSink(JTextArea area) {
+        this.area = area;
+        this.timer = new Timer(REFRESH_MS, e -> drain());
+        timer.setRepeats(false);
+    }
+
+    @Override
+    public synchronized void reset() {
+        pending.setLength(0);
+        replace = true;
+        schedule();
+    }
+
+    @Override
+    public synchronized void append(CharSequence text) {
+        pending.append(text);
+        schedule();
+    }
+
+    /** Drains right away when called on the EDT, otherwise as soon as the EDT gets to it. */
+    @Override
+    public void flush() {
+        if (SwingUtilities.isEventDispatchThread()) drain();
+        else SwingUtilities.invokeLater(this::drain);
+    }
+
+    private void schedule() {
+        if (!timer.isRunning()) timer.start();
+    }
+
+    private void drain() {
+        String text;
+        boolean clear;
+        synchronized (this) {
+            timer.stop();
+            text = pending.toString();
+            clear = replace;
+            pending.setLength(0);
+            replace = false;
+        }
+        if (clear) area.setText(text);
+        else if (!text.isEmpty()) area.append(text);
+    }
+}
@@ -0,0 +1,54 @@
+import javax.swing.text.*;
+
+/**
+ * The TPL code area: a {@link CodeEditor} colored by {@link HighlightLexer}, whose documents
+ * keep their text in a {@link PieceTableContent}, so analyzers read a {@link #snapshot}
+ * instead of a copy.
+ */
+public class TplCodeEditor extends CodeEditor {
+
+    public TplCodeEditor() {
+        super(new HighlightLexer());
+    }
+
+    /** Documents made by {@link #read} and {@link #setEditorKit} are piece tables too. */
+    @Override
+    protected EditorKit createDefaultEditorKit() {
+        return new StyledEditorKit() {
+            @Override
+            public Document createDefaultDocument() { return new CodeDocument(); }
+        };
+    }
+
+    /** The text as it is now, sharing the document's storage. It may be read on any thread. */
+    public CharSequence snapshot() {
+        return textOf(getDocument());
+    }
+
+    /** A {@link #snapshot} of a TplCodeEditor's document, or a copy of any other document's text. */
+    public static CharSequence textOf(Document doc) {
+        if (doc instanceof CodeDocument code) return code.snapshot();
+        try {
+            return doc.getText(0, doc.getLength());
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static final class CodeDocument extends DefaultStyledDocument {
+        CodeDocument() {
+            super(new PieceTableContent(), new StyleContext());
+        }
+
+        PieceTableContent.Text snapshot() {
+            readLock();
+            try {
+                return ((PieceTableContent) getContent()).snapshot(0, getLength());
+            } catch (BadLocationException ex) {
+                throw new IllegalStateException(ex);
+            } finally {
+                readUnlock();
+            }
+        }
+    }
+}
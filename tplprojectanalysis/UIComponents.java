@@ -1,8 +1,14 @@
 import java.awt.*;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
 
 public class UIComponents {
 
@@ -21,7 +27,7 @@ public class UIComponents {
         return top;
     }
 
-    public static JScrollPane createCodeScrollPane(JTextArea area) {
+    public static JScrollPane createCodeScrollPane(CodeEditor area) {
         area.setFont(new Font("Consolas", Font.PLAIN, 16));
         area.setTabSize(4);
         JScrollPane scroll = new JScrollPane(area);
@@ -38,6 +44,66 @@ public class UIComponents {
         return scroll;
     }
 
+    public static JPanel createStatusPanel(JProgressBar progressBar, JButton cancelBtn, JCheckBox liveBox, JLabel metricsLabel) {
+        JPanel status = new JPanel(new BorderLayout(15, 0));
+        status.setBackground(new Color(44, 62, 80));
+        status.setBorder(BorderFactory.createEmptyBorder(8, 10, 8, 10));
+
+        progressBar.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        styleButton(cancelBtn, new Color(192, 57, 43));
+        cancelBtn.setPreferredSize(new Dimension(120, 30));
+
+        liveBox.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        liveBox.setForeground(Color.WHITE);
+        liveBox.setOpaque(false);
+        liveBox.setFocusPainted(false);
+
+        status.add(liveBox, BorderLayout.WEST);
+        status.add(progressBar, BorderLayout.CENTER);
+        status.add(cancelBtn, BorderLayout.EAST);
+
+        metricsLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        metricsLabel.setForeground(new Color(189, 195, 199));
+        metricsLabel.setText(" ");
+        status.add(metricsLabel, BorderLayout.SOUTH);
+        return status;
+    }
+
+    /** The pipeline the windows analyze with: parallel, cached on disk and with error limits. */
+    public static Pipeline newPipeline() {
+        Pipeline pipeline = new Pipeline(ForkJoinPool.commonPool());
+        // Re-opened files that have not changed are not analyzed again.
+        pipeline.setCache(AnalysisCache.openDefault());
+        // A binary or garbled file would otherwise fill the result pane with errors.
+        pipeline.setLimits(new DiagnosticLimits(1000));
+        return pipeline;
+    }
+
+    /** Shows what the last run of {@code phase} cost, or that its result came from the cache. */
+    public static void showMetrics(JLabel metricsLabel, AnalysisResult result, Diagnostic.Phase phase) {
+        PhaseMetrics m = result.metrics(phase);
+        metricsLabel.setText(m != null ? m.toString() : result.isCached() ? phase.label + ": from cache" : " ");
+    }
+
+    /**
+     * Runs {@code onEdit} after every insert or removal in the code area, and when a new
+     * document is installed. Restyling by the highlighter does not count as an edit.
+     */
+    public static void onEdit(JTextComponent codeArea, Runnable onEdit) {
+        DocumentListener listener = new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { onEdit.run(); }
+            @Override public void removeUpdate(DocumentEvent e) { onEdit.run(); }
+            @Override public void changedUpdate(DocumentEvent e) { }
+        };
+        codeArea.getDocument().addDocumentListener(listener);
+        // JTextComponent.read() installs a new document, so follow the "document" property.
+        codeArea.addPropertyChangeListener("document", e -> {
+            ((Document) e.getOldValue()).removeDocumentListener(listener);
+            ((Document) e.getNewValue()).addDocumentListener(listener);
+            onEdit.run();
+        });
+    }
+
     public static void styleButton(JButton b, Color c) {
         b.setPreferredSize(new Dimension(190, 55));
         b.setFont(new Font("Segoe UI", Font.BOLD, 15));
@@ -57,13 +123,16 @@ public class UIComponents {
         );
     }
 
-    public static void openFile(JTextArea codeArea, JTextArea resultArea, Runnable onSuccess) {
+    public static void openFile(JTextComponent codeArea, JTextArea resultArea, Runnable onSuccess) {
         JFileChooser fc = new JFileChooser(".");
         fc.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Source files", "txt", "mini"));
         if (fc.showOpenDialog(null) == JFileChooser.APPROVE_OPTION) {
             try {
-                String content = Files.readString(fc.getSelectedFile().toPath());
-                codeArea.setText(content.trim());
+                // Stream the file into the editor's document in chunks rather than building
+                // the whole text as a String first.
+                try (Reader in = Files.newBufferedReader(fc.getSelectedFile().toPath())) {
+                    codeArea.read(in, fc.getSelectedFile());
+                }
                 resultArea.setText("File loaded: " + fc.getSelectedFile().getName() + "\nReady for analysis.\n");
                 onSuccess.run();
             } catch (IOException ex) {
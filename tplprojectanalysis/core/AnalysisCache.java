@@ -0,0 +1,217 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Keeps finished {@link AnalysisResult}s on disk so an unchanged source is not analyzed
+ * again. Entries are keyed by a SHA-256 of the source text and {@link Pipeline#VERSION}, so
+ * changing either misses. Each entry is one file holding the tokens, the diagnostics of
+ * each phase and the symbol table in a compact binary form.
+ *
+ * <p>The directory is kept under a size limit by deleting the least recently used entries;
+ * a hit counts as a use. The cache is safe to share between threads and between processes.
+ * It never fails an analysis: an entry that cannot be read is dropped and treated as a
+ * miss, and one that cannot be written is skipped.
+ */
+public class AnalysisCache {
+    public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+    private static final int MAGIC = 0x54504c43; // "TPLC"
+    private static final int FORMAT = 2;
+    private static final String SUFFIX = ".bin";
+
+    private final Path dir;
+    private final long maxBytes;
+    private final AtomicLong bytes = new AtomicLong();
+
+    public AnalysisCache(Path dir, long maxBytes) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.maxBytes = maxBytes;
+        for (Entry e : entries()) bytes.addAndGet(e.size);
+    }
+
+    /** A cache in {@code ~/.cache/tplprojectanalysis}, or null if it cannot be created. */
+    public static AnalysisCache openDefault() {
+        try {
+            return new AnalysisCache(Paths.get(System.getProperty("user.home"), ".cache", "tplprojectanalysis"), DEFAULT_MAX_BYTES);
+        } catch (IOException | SecurityException ex) {
+            return null;
+        }
+    }
+
+    /** The key of {@code src}: a hash of its characters and the analyzer version. */
+    public static String key(CharSequence src) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        ByteBuffer buf = ByteBuffer.allocate(1 << 13);
+        buf.putInt(Pipeline.VERSION).putInt(src.length());
+        for (int i = 0; i < src.length(); i++) {
+            if (buf.remaining() < 2) {
+                digest.update(buf.flip());
+                buf.clear();
+            }
+            buf.putChar(src.charAt(i));
+        }
+        digest.update(buf.flip());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** The finished result stored for {@code src} under {@code key}, or null. */
+    public AnalysisResult get(String key, CharSequence src) {
+        Path file = dir.resolve(key + SUFFIX);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT || in.readInt() != Pipeline.VERSION
+                    || in.readInt() != src.length()) {
+                throw new IOException("Stale cache entry");
+            }
+            AnalysisResult result = new AnalysisResult(TokenStream.readFrom(in, src));
+            for (Diagnostic.Phase phase : Diagnostic.Phase.values()) {
+                int flags = in.readByte();
+                if ((flags & 1) == 0) continue;
+                int count = readVarint(in);
+                List<Diagnostic> found = new ArrayList<>(Math.min(count, 1024));
+                for (int i = 0; i < count; i++) found.add(new Diagnostic(phase, readVarint(in), in.readUTF()));
+                result.record(phase, found, (flags & 2) != 0);
+            }
+            Map<String, DataType> table = new LinkedHashMap<>();
+            DataType[] types = DataType.values();
+            for (int i = readVarint(in); i > 0; i--) table.put(in.readUTF(), types[in.readByte()]);
+            result.symbolTable(table);
+            result.cacheKey = key;
+            result.cached = true;
+            touch(file);
+            return result;
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException | RuntimeException ex) {
+            // Corrupt, truncated or from another version.
+            delete(file);
+            return null;
+        }
+    }
+
+    /** Stores {@code result} under {@code key}, then evicts old entries if over the limit. */
+    public void put(String key, AnalysisResult result) {
+        Path file = dir.resolve(key + SUFFIX);
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(dir, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(Pipeline.VERSION);
+                out.writeInt(result.tokens().source().length());
+                result.tokens().writeTo(out);
+                for (Diagnostic.Phase phase : Diagnostic.Phase.values()) {
+                    boolean ran = result.ran(phase);
+                    out.writeByte((ran ? 1 : 0) | (result.passed(phase) ? 2 : 0));
+                    if (!ran) continue;
+                    List<Diagnostic> found = result.diagnostics(phase);
+                    writeVarint(out, found.size());
+                    for (Diagnostic d : found) {
+                        writeVarint(out, d.line);
+                        out.writeUTF(d.message);
+                    }
+                }
+                Map<String, DataType> table = result.symbolTable();
+                writeVarint(out, table.size());
+                for (Map.Entry<String, DataType> e : table.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeByte(e.getValue().ordinal());
+                }
+            }
+            long size = Files.size(tmp);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+            if (bytes.addAndGet(size) > maxBytes) evict();
+        } catch (IOException | UncheckedIOException ex) {
+            // The cache is an optimization; the result is still returned to the caller.
+        } finally {
+            if (tmp != null) delete(tmp);
+        }
+    }
+
+    /** Deletes the least recently used entries until the cache is within 90% of its limit. */
+    private synchronized void evict() throws IOException {
+        List<Entry> entries = entries();
+        long total = 0;
+        for (Entry e : entries) total += e.size;
+        entries.sort(Comparator.comparing(e -> e.used));
+        for (Iterator<Entry> it = entries.iterator(); it.hasNext() && total > maxBytes * 9 / 10; ) {
+            Entry e = it.next();
+            if (delete(e.path)) total -= e.size;
+        }
+        bytes.set(total);
+    }
+
+    private static final class Entry {
+        final Path path;
+        final long size;
+        final FileTime used;
+
+        Entry(Path path, long size, FileTime used) {
+            this.path = path;
+            this.size = size;
+            this.used = used;
+        }
+    }
+
+    private List<Entry> entries() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (!p.getFileName().toString().endsWith(SUFFIX)) continue;
+                try {
+                    entries.add(new Entry(p, Files.size(p), Files.getLastModifiedTime(p)));
+                } catch (IOException ex) {
+                    // Evicted by another thread or process meanwhile.
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ex) {
+            // Only affects the eviction order.
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    static void writeVarint(DataOutput out, int v) throws IOException {
+        while ((v & ~0x7f) != 0) {
+            out.writeByte((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    static int readVarint(DataInput in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readByte();
+            v |= (b & 0x7f) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a {@link Pipeline} found in one source: the tokens, the diagnostics of each phase in
+ * line order, and the symbol table. A phase that has not run yet has no diagnostics and
+ * neither passed nor failed.
+ */
+public class AnalysisResult {
+    private static final int PHASES = Diagnostic.Phase.values().length;
+
+    private final TokenStream tokens;
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    private final int[] firstOfPhase = new int[PHASES + 1];
+    private final boolean[] ran = new boolean[PHASES];
+    private final boolean[] passed = new boolean[PHASES];
+    private final PhaseMetrics[] metrics = new PhaseMetrics[PHASES];
+    // Set by the lexical phase; counted from the source only for a cached or stopped result.
+    int lines = -1;
+    private Diagnostic.Phase stoppedIn;
+    private Map<String, DataType> symbolTable = Map.of();
+    // Where a pipeline with a cache stores this result once it is finished.
+    String cacheKey;
+    boolean cached;
+
+    AnalysisResult(TokenStream tokens) {
+        this.tokens = tokens;
+    }
+
+    /** Records the outcome of {@code phase}. Phases are recorded in order. */
+    void record(Diagnostic.Phase phase, List<Diagnostic> found, boolean success) {
+        int p = phase.ordinal();
+        firstOfPhase[p] = diagnostics.size();
+        diagnostics.addAll(found);
+        for (int i = p + 1; i <= PHASES; i++) firstOfPhase[i] = diagnostics.size();
+        ran[p] = true;
+        passed[p] = success;
+    }
+
+    void stop(Diagnostic.Phase phase) {
+        stoppedIn = phase;
+    }
+
+    void symbolTable(Map<String, DataType> table) {
+        symbolTable = table;
+    }
+
+    void metrics(PhaseMetrics m) {
+        metrics[m.phase.ordinal()] = m;
+    }
+
+    public TokenStream tokens() { return tokens; }
+
+    /** All diagnostics, lexical first, then syntax, then semantic. */
+    public List<Diagnostic> diagnostics() { return Collections.unmodifiableList(diagnostics); }
+
+    public List<Diagnostic> diagnostics(Diagnostic.Phase phase) {
+        int p = phase.ordinal();
+        return Collections.unmodifiableList(diagnostics.subList(firstOfPhase[p], firstOfPhase[p + 1]));
+    }
+
+    public boolean ran(Diagnostic.Phase phase) { return ran[phase.ordinal()]; }
+    public boolean passed(Diagnostic.Phase phase) { return passed[phase.ordinal()]; }
+
+    /** Whether every phase ran and passed. */
+    public boolean isSuccess() {
+        for (int p = 0; p < PHASES; p++) {
+            if (!passed[p]) return false;
+        }
+        return true;
+    }
+
+    public Map<String, DataType> symbolTable() { return Collections.unmodifiableMap(symbolTable); }
+
+    /** What running {@code phase} cost, or null if it has not run or the result came from a cache. */
+    public PhaseMetrics metrics(Diagnostic.Phase phase) { return metrics[phase.ordinal()]; }
+
+    /**
+     * The phase that reached one of the pipeline's {@link DiagnosticLimits} and was stopped,
+     * or null if none was. Later phases did not run, and the tokens are dropped if it was
+     * lexical analysis.
+     */
+    public Diagnostic.Phase stoppedIn() { return stoppedIn; }
+
+    /** Whether the result was read from an {@link AnalysisCache} rather than computed. */
+    public boolean isCached() { return cached; }
+
+    /** The number of lines in the source. */
+    public int lines() {
+        if (lines < 0) {
+            CharSequence src = tokens.source();
+            if (src instanceof LineIndexed indexed) return lines = indexed.lineCount();
+            int n = 1;
+            for (int i = 0; i < src.length(); i++) {
+                if (src.charAt(i) == '\n') n++;
+            }
+            lines = n;
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,330 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point. Runs lexical, syntax and semantic analysis over files, directories
+ * or glob patterns on a fork-join pool and prints diagnostics ordered by path, then line.
+ *
+ * <pre>java BatchAnalyzer [-j threads] [-o file] [--stream] [--run|--interpret]
+ *      [--max-errors N] [--max-phase-errors N] [--fail-fast] [--cache dir [--cache-size MB]]
+ *      [--metrics json|prometheus [--metrics-out file]] &lt;file|dir|glob&gt;...</pre>
+ *
+ * Diagnostics go to stdout, or to the file named by {@code -o}.
+ *
+ * {@code --max-errors} stops analyzing a file once it has that many errors, and
+ * {@code --max-phase-errors} once any one phase has. {@code --fail-fast} stops at a file's
+ * first error. A file that was stopped gets a line saying how many errors it had by then.
+ *
+ * With {@code --cache} the results of each file are kept in an {@link AnalysisCache} in
+ * {@code dir}, so files that have not changed since an earlier run are not analyzed again.
+ *
+ * With {@code --metrics} the time, CPU time, allocation, lines, tokens and symbols of each
+ * phase, summed over all files, are written to stderr or to {@code --metrics-out} as JSON or
+ * Prometheus text (see {@link Metrics}). They are not collected with {@code --stream}.
+ *
+ * With {@code --run} each file without errors is compiled by {@link CodeGenerator} and run,
+ * and the final value of each of its variables is printed after the diagnostics. A literal
+ * that does not fit its type when compiled counts as an error. {@code --interpret} does the
+ * same through {@link Interpreter}. Both are ignored with {@code --stream}.
+ *
+ * With {@code --stream} files are taken one at a time, read through a memory-mapped window
+ * and analyzed line by line (see {@link StreamingAnalyzer}), so neither file size nor error
+ * count is limited by the heap.
+ * Directories are searched recursively for the same {@code .txt}/{@code .mini} sources the
+ * file chooser offers. Exit status is 0 when every file is clean, 1 when any file has
+ * errors and 2 on bad usage or unreadable input.
+ */
+public class BatchAnalyzer {
+
+    private static final class Result {
+        final Path path;
+        final List<Diagnostic> diagnostics;
+        final String failure;
+        // Set when a limit stopped the analysis.
+        String stopped;
+        // With --run: the variables' final values, or why the program could not be compiled.
+        Map<String, Object> values;
+        String compileError;
+
+        Result(Path path, List<Diagnostic> diagnostics, String failure) {
+            this.path = path;
+            this.diagnostics = diagnostics;
+            this.failure = failure;
+        }
+    }
+
+    private static final class Totals {
+        int failedFiles;
+        long diagnostics;
+        boolean unreadable;
+
+        void print(ResultSink out, Path path, Diagnostic d) {
+            out.append(path + ": " + d + "\n");
+            diagnostics++;
+        }
+
+        void unreadable(ResultSink out, Path path, String failure) {
+            out.append(path + ": " + failure + "\n");
+            unreadable = true;
+            failedFiles++;
+        }
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean stream = false;
+        Function<AnalysisResult, Map<String, Object>> run = null;
+        int maxErrors = DiagnosticLimits.UNLIMITED;
+        int maxPhaseErrors = DiagnosticLimits.UNLIMITED;
+        Path output = null;
+        Path cacheDir = null;
+        long cacheSize = AnalysisCache.DEFAULT_MAX_BYTES;
+        String metricsFormat = null;
+        Path metricsOut = null;
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-j") && i + 1 < args.length) {
+                threads = intOption(args[++i]);
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                output = Paths.get(args[++i]);
+            } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                cacheDir = Paths.get(args[++i]);
+            } else if (args[i].equals("--cache-size") && i + 1 < args.length) {
+                cacheSize = longOption(args[++i]) << 20;
+            } else if (args[i].equals("--metrics") && i + 1 < args.length) {
+                metricsFormat = args[++i];
+            } else if (args[i].equals("--metrics-out") && i + 1 < args.length) {
+                metricsOut = Paths.get(args[++i]);
+            } else if (args[i].equals("--max-errors") && i + 1 < args.length) {
+                maxErrors = intOption(args[++i]);
+            } else if (args[i].equals("--max-phase-errors") && i + 1 < args.length) {
+                maxPhaseErrors = intOption(args[++i]);
+            } else if (args[i].equals("--fail-fast")) {
+                maxErrors = 1;
+            } else if (args[i].equals("--stream")) {
+                stream = true;
+            } else if (args[i].equals("--run")) {
+                run = result -> CodeGenerator.compile(result).run();
+            } else if (args[i].equals("--interpret")) {
+                run = result -> Interpreter.lower(result).run();
+            } else {
+                inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty() || threads < 1 || cacheSize < 0 || maxErrors < 1 || maxPhaseErrors < 1 || (metricsFormat != null && !metricsFormat.equals("json") && !metricsFormat.equals("prometheus"))) {
+            System.err.println("Usage: java BatchAnalyzer [-j threads] [-o file] [--stream] [--run|--interpret]"
+                    + " [--max-errors N] [--max-phase-errors N] [--fail-fast] [--cache dir [--cache-size MB]]"
+                    + " [--metrics json|prometheus [--metrics-out file]] <file|dir|glob>...");
+            System.exit(2);
+        }
+
+        SortedSet<Path> files = new TreeSet<>();
+        try {
+            for (String input : inputs) collect(input, files);
+        } catch (IOException ex) {
+            System.err.println("Cannot read input: " + ex.getMessage());
+            System.exit(2);
+        }
+
+        AnalysisCache cache = null;
+        if (cacheDir != null) {
+            try {
+                cache = new AnalysisCache(cacheDir, cacheSize);
+            } catch (IOException ex) {
+                System.err.println("Cannot open cache, analyzing without it: " + ex.getMessage());
+            }
+        }
+
+        DiagnosticLimits limits = new DiagnosticLimits(maxErrors);
+        if (maxPhaseErrors != DiagnosticLimits.UNLIMITED) limits = limits.withPhaseLimit(maxPhaseErrors);
+
+        Metrics metrics = metricsFormat == null ? null : new Metrics();
+        Totals totals;
+        try {
+            WriterResultSink out = output == null ? WriterResultSink.stdout() : WriterResultSink.toFile(output);
+            totals = stream ? streamAll(files, limits, out) : analyzeAll(files, threads, cache, limits, metrics, run, out);
+            if (output == null) out.flush();
+            else out.close();
+        } catch (IOException ex) {
+            System.err.println("Cannot write output: " + ex.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.err.println("Analyzed " + files.size() + " file(s): " + totals.failedFiles
+                + " with errors, " + totals.diagnostics + " diagnostic(s).");
+
+        if (metrics != null) {
+            String text = metricsFormat.equals("json") ? metrics.toJson() : metrics.toPrometheus();
+            try {
+                if (metricsOut == null) System.err.print(text);
+                else Files.writeString(metricsOut, text, StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                System.err.println("Cannot write metrics: " + ex.getMessage());
+                System.exit(2);
+            }
+        }
+
+        System.exit(totals.unreadable ? 2 : totals.failedFiles > 0 ? 1 : 0);
+    }
+
+    private static Totals analyzeAll(Collection<Path> files, int threads, AnalysisCache cache, DiagnosticLimits limits,
+                                     Metrics metrics, Function<AnalysisResult, Map<String, Object>> run, ResultSink out) {
+        List<Path> work = new ArrayList<>(files);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Result> results;
+        try {
+            results = pool.submit(() -> work.parallelStream()
+                    .map(path -> analyze(path, pool, cache, limits, metrics, run))
+                    .collect(Collectors.toList())).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        Totals totals = new Totals();
+        for (Result r : results) {
+            if (r.failure != null) {
+                totals.unreadable(out, r.path, r.failure);
+                continue;
+            }
+            if (!r.diagnostics.isEmpty() || r.compileError != null) totals.failedFiles++;
+            for (Diagnostic d : r.diagnostics) totals.print(out, r.path, d);
+            if (r.stopped != null) out.append(r.path + ": " + r.stopped + "\n");
+            if (r.compileError != null) out.append(r.path + ": " + r.compileError + "\n");
+            if (r.values != null) r.values.forEach((name, value) -> out.append(r.path + ": " + name + " = " + value + "\n"));
+        }
+        return totals;
+    }
+
+    /**
+     * Streams one file at a time in path order and prints each diagnostic as soon as it is
+     * found. Neither the sources nor their diagnostics are held in memory.
+     */
+    private static Totals streamAll(Collection<Path> files, DiagnosticLimits limits, ResultSink out) {
+        Totals totals = new Totals();
+        for (Path path : files) {
+            long before = totals.diagnostics;
+            try {
+                if (!StreamingAnalyzer.analyze(path, limits.limit(d -> totals.print(out, path, d)))) totals.failedFiles++;
+            } catch (DiagnosticLimits.LimitReached ex) {
+                totals.failedFiles++;
+                out.append(path + ": Stopped after " + (totals.diagnostics - before) + " error(s).\n");
+            } catch (IOException ex) {
+                totals.unreadable(out, path, "Cannot read file (" + ex.getMessage() + ")");
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Runs all phases through {@link Pipeline#run} within {@code limits}, lexing large files in
+     * chunks on {@code pool} and taking results from {@code cache} and adding to {@code metrics}
+     * when they are not null. A clean program is then run by {@code run}, if it is not null.
+     */
+    static Result analyze(Path path, ForkJoinPool pool, AnalysisCache cache, DiagnosticLimits limits, Metrics metrics,
+                          Function<AnalysisResult, Map<String, Object>> run) {
+        String src;
+        try {
+            src = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            return new Result(path, List.of(), "Cannot read file (" + ex.getMessage() + ")");
+        }
+
+        Pipeline pipeline = new Pipeline(pool);
+        pipeline.setCache(cache);
+        pipeline.setLimits(limits);
+        AnalysisResult result = pipeline.run(src);
+        if (metrics != null) metrics.add(result);
+        Result r = new Result(path, result.diagnostics(), null);
+        if (result.stoppedIn() != null) r.stopped = Report.stopped(result);
+        if (run != null && result.isSuccess()) {
+            try {
+                r.values = run.apply(result);
+            } catch (IllegalArgumentException ex) {
+                r.compileError = ex.getMessage();
+            }
+        }
+        return r;
+    }
+
+    private static void collect(String input, SortedSet<Path> files) throws IOException {
+        int glob = firstGlobChar(input);
+        if (glob < 0) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(Files::isRegularFile).filter(BatchAnalyzer::isSource).forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+            return;
+        }
+
+        // Walk from the deepest directory that has no wildcard in it.
+        int sep = Math.max(input.lastIndexOf('/', glob), input.lastIndexOf(java.io.File.separatorChar, glob));
+        Path base = Paths.get(sep < 0 ? "" : input.substring(0, sep + 1));
+        Predicate<Path> matcher = globMatcher(input);
+        if (!Files.isDirectory(base)) return;
+        try (Stream<Path> walk = Files.walk(base)) {
+            walk.filter(Files::isRegularFile).filter(matcher).forEach(files::add);
+        }
+    }
+
+    /**
+     * Matches {@code glob} as a shell does, where each {@code **}{@code /} may also match no
+     * directory at all. A PathMatcher's needs at least one, so this tries each glob with and
+     * without every such step.
+     */
+    private static Predicate<Path> globMatcher(String glob) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String g : withoutAnyDirs(glob)) matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + g));
+        return path -> matchers.stream().anyMatch(m -> m.matches(path));
+    }
+
+    private static List<String> withoutAnyDirs(String glob) {
+        int at = glob.indexOf("**/");
+        if (at < 0) return List.of(glob);
+        List<String> globs = new ArrayList<>();
+        for (String rest : withoutAnyDirs(glob.substring(at + 3))) {
+            globs.add(glob.substring(0, at + 3) + rest);
+            globs.add(glob.substring(0, at) + rest);
+        }
+        return globs;
+    }
+
+    /** The value of a numeric option, or -1 if it is not a number, which the option checks reject. */
+    private static int intOption(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long longOption(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int firstGlobChar(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if ("*?[{".indexOf(s.charAt(i)) >= 0) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isSource(Path p) {
+        String name = p.getFileName().toString();
+        return name.endsWith(".txt") || name.endsWith(".mini");
+    }
+}
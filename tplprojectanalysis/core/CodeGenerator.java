@@ -0,0 +1,405 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a program that passed all three phases to JVM bytecode and loads it as hidden
+ * classes, so running it costs what the same assignments would cost in Java once the JIT has
+ * seen them. Each class has one static method in which every variable is a local of its
+ * declared type.
+ *
+ * <p>HotSpot does not JIT-compile methods over 8000 bytes of bytecode, so a longer program is
+ * cut into several such classes, run one after another. At the end of each method the
+ * variables it assigned are copied into one array per JVM type, where the next method and
+ * {@link Program#run} find them.
+ */
+public final class CodeGenerator {
+    // HotSpot's HugeMethodLimit.
+    static final int MAX_CODE = 8000;
+
+    private static final MethodType SEGMENT_TYPE = MethodType.methodType(void.class,
+            int[].class, long[].class, float[].class, double[].class, String[].class);
+    private static final String SEGMENT_DESCRIPTOR = SEGMENT_TYPE.toMethodDescriptorString();
+
+    // Which of the method's array parameters holds variables of each type.
+    private static final int INTS = 0, LONGS = 1, FLOATS = 2, DOUBLES = 3, STRINGS = 4;
+    private static final int FIRST_LOCAL = 5;
+
+    private CodeGenerator() {}
+
+    /** A compiled program. It can be run any number of times, from any thread. */
+    public static final class Program {
+        private final MethodHandle[] segments;
+        private final String[] names;
+        private final DataType[] types;
+        private final int[] slots;
+        private final int[] counts;
+
+        Program(MethodHandle[] segments, String[] names, DataType[] types, int[] slots, int[] counts) {
+            this.segments = segments;
+            this.names = names;
+            this.types = types;
+            this.slots = slots;
+            this.counts = counts;
+        }
+
+        /** Runs the program and returns the final value of each variable, in declaration order. */
+        public Map<String, Object> run() {
+            int[] ints = new int[counts[INTS]];
+            long[] longs = new long[counts[LONGS]];
+            float[] floats = new float[counts[FLOATS]];
+            double[] doubles = new double[counts[DOUBLES]];
+            String[] strings = new String[counts[STRINGS]];
+            try {
+                for (MethodHandle segment : segments) segment.invokeExact(ints, longs, floats, doubles, strings);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int v = 0; v < names.length; v++) {
+                int i = slots[v];
+                values.put(names[v], switch (types[v]) {
+                    case BYTE -> (byte) ints[i];
+                    case SHORT -> (short) ints[i];
+                    case INT -> ints[i];
+                    case CHAR -> (char) ints[i];
+                    case BOOLEAN -> ints[i] != 0;
+                    case LONG -> longs[i];
+                    case FLOAT -> floats[i];
+                    case DOUBLE -> doubles[i];
+                    case STRING -> strings[i];
+                });
+            }
+            return values;
+        }
+
+        /** The number of generated classes. */
+        public int classes() { return segments.length; }
+    }
+
+    /** A variable of the program: its type and where its value is kept between methods. */
+    private static final class Variable {
+        final String name;
+        final DataType type;
+        final int array;
+        final int slot;
+        // The method that last used this variable, and the local it has there.
+        Segment segment;
+        int local;
+
+        Variable(String name, DataType type, int array, int slot) {
+            this.name = name;
+            this.type = type;
+            this.array = array;
+            this.slot = slot;
+        }
+    }
+
+    public static Program compile(AnalysisResult result) {
+        return compile(result, Progress.NONE);
+    }
+
+    /**
+     * Compiles {@code result}, which must have passed every phase. Throws
+     * IllegalArgumentException if it has not, or if an integer literal the checker let
+     * through does not fit its type.
+     */
+    public static Program compile(AnalysisResult result, Progress progress) {
+        if (!result.isSuccess()) throw new IllegalArgumentException("Only a program without errors can be compiled");
+        TokenStream tokens = result.tokens();
+        CharSequence src = tokens.source();
+        int total = tokens.size() == 0 ? 0 : tokens.line(tokens.size() - 1);
+
+        Map<String, Variable> variables = new LinkedHashMap<>();
+        int[] counts = new int[STRINGS + 1];
+        List<MethodHandle> segments = new ArrayList<>();
+        Segment segment = new Segment();
+        Utils.Literal literal = new Utils.Literal();
+
+        int statements = 0;
+        for (int from = 0, to; from < tokens.size(); from = to) {
+            to = tokens.statementEnd(from);
+            int line = tokens.line(from);
+            if (++statements % Progress.INTERVAL == 0) Progress.checkpoint(progress, line, total);
+
+            int assign = tokens.indexOf(TokenKind.ASSIGNMENT_OPERATOR, from, to);
+            Variable v;
+            if (assign - from == 2) {
+                DataType type = DataType.of(src, tokens.start(from), tokens.end(from));
+                int array = arrayOf(type);
+                v = new Variable(tokens.text(from + 1), type, array, counts[array]++);
+                variables.put(v.name, v);
+            } else {
+                v = variables.get(tokens.text(from));
+            }
+
+            if (!segment.fits(v)) {
+                segments.add(segment.define());
+                segment = new Segment();
+            }
+            int vs = tokens.start(assign + 1), ve = tokens.end(assign + 1);
+            Utils.scanLiteral(src, vs, ve, literal);
+            segment.assign(v, src, vs, ve, literal, line);
+        }
+        if (!segment.isEmpty() || segments.isEmpty()) segments.add(segment.define());
+
+        int n = variables.size();
+        String[] names = new String[n];
+        DataType[] types = new DataType[n];
+        int[] slots = new int[n];
+        int i = 0;
+        for (Variable v : variables.values()) {
+            names[i] = v.name;
+            types[i] = v.type;
+            slots[i++] = v.slot;
+        }
+        return new Program(segments.toArray(new MethodHandle[0]), names, types, slots, counts);
+    }
+
+    private static int arrayOf(DataType type) {
+        return switch (type) {
+            case BYTE, SHORT, INT, CHAR, BOOLEAN -> INTS;
+            case LONG -> LONGS;
+            case FLOAT -> FLOATS;
+            case DOUBLE -> DOUBLES;
+            case STRING -> STRINGS;
+        };
+    }
+
+    /**
+     * One generated class, with a static method {@code run(int[], long[], float[], double[],
+     * String[])}. The method has no branches, so the class file needs no stack map frames.
+     */
+    private static final class Segment {
+        private static final int MAX_STATEMENT = 7;
+        private static final int MAX_STORE = 10;
+
+        private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream pool = new DataOutputStream(poolBytes);
+        private int poolCount = 1;
+        private final Map<String, Integer> utf8 = new HashMap<>();
+        private final Map<Object, Integer> constants = new HashMap<>();
+
+        private byte[] code = new byte[256];
+        private int length;
+        private int locals = FIRST_LOCAL;
+        private final List<Variable> assigned = new ArrayList<>();
+
+        /** Whether one more assignment to {@code v}, and storing it at the end, stays under {@link #MAX_CODE}. */
+        boolean fits(Variable v) {
+            int stores = assigned.size() + (v.segment == this ? 0 : 1);
+            return length + MAX_STATEMENT + stores * MAX_STORE + 1 <= MAX_CODE;
+        }
+
+        boolean isEmpty() { return length == 0; }
+
+        void assign(Variable v, CharSequence src, int from, int to, Utils.Literal lit, int line) {
+            if (v.segment != this) {
+                v.segment = this;
+                v.local = locals;
+                locals += v.array == LONGS || v.array == DOUBLES ? 2 : 1;
+                assigned.add(v);
+            }
+            if (!Utils.fits(lit, v.type)) {
+                throw new IllegalArgumentException("Line " + line + ": value of " + v.name + " does not fit in " + v.type);
+            }
+            switch (v.type) {
+                case BYTE, SHORT, INT -> pushInt((int) lit.value);
+                case CHAR -> pushInt(Utils.charValue(src, from + 1, to - 1));
+                case BOOLEAN -> pushInt(src.charAt(from) == 't' ? 1 : 0);
+                case LONG -> pushLong(lit.value);
+                case FLOAT -> pushFloat(Utils.floatValue(src, from, to, lit));
+                case DOUBLE -> pushDouble(Utils.doubleValue(src, from, to, lit));
+                case STRING -> ldc(Utils.stringValue(src, from + 1, to - 1));
+            }
+            varInsn(0x36 + v.array, v.local);
+        }
+
+        /** Stores each assigned variable in its array and loads the class. */
+        MethodHandle define() {
+            for (Variable v : assigned) {
+                if (v.array < 4) op(0x2a + v.array);
+                else op2(0x19, v.array);
+                pushInt(v.slot);
+                varInsn(0x15 + v.array, v.local);
+                op(0x4f + v.array);
+            }
+            op(0xb1);
+
+            try {
+                int thisClass = classRef("TplProgram");
+                int superClass = classRef("java/lang/Object");
+                int name = utf8("run");
+                int descriptor = utf8(SEGMENT_DESCRIPTOR);
+                int codeAttribute = utf8("Code");
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(poolBytes.size() + length + 64);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(61);
+                out.writeShort(poolCount);
+                poolBytes.writeTo(out);
+                out.writeShort(0x0030);             // ACC_FINAL | ACC_SUPER
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(0);                  // interfaces
+                out.writeShort(0);                  // fields
+                out.writeShort(1);                  // methods
+                out.writeShort(0x0009);             // ACC_PUBLIC | ACC_STATIC
+                out.writeShort(name);
+                out.writeShort(descriptor);
+                out.writeShort(1);
+                out.writeShort(codeAttribute);
+                out.writeInt(12 + length);
+                out.writeShort(4);                  // max_stack: array, index and a long value
+                out.writeShort(locals);
+                out.writeInt(length);
+                out.write(code, 0, length);
+                out.writeShort(0);                  // exception table
+                out.writeShort(0);                  // code attributes
+                out.writeShort(0);                  // class attributes
+
+                MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes.toByteArray(), true);
+                return lookup.findStatic(lookup.lookupClass(), "run", SEGMENT_TYPE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Generated class did not load", e);
+            }
+        }
+
+        private void pushInt(int value) {
+            if (value >= -1 && value <= 5) op(0x03 + value);
+            else if (value == (byte) value) op2(0x10, value & 0xff);
+            else if (value == (short) value) op3(0x11, value);
+            else ldc(value);
+        }
+
+        private void pushLong(long value) {
+            if (value == 0 || value == 1) op(0x09 + (int) value);
+            else ldc2(value);
+        }
+
+        private void pushFloat(float value) {
+            int bits = Float.floatToIntBits(value);
+            if (bits == Float.floatToIntBits(0f) || bits == Float.floatToIntBits(1f) || bits == Float.floatToIntBits(2f)) {
+                op(0x0b + (int) value);
+            } else {
+                ldc(value);
+            }
+        }
+
+        private void pushDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            if (bits == Double.doubleToLongBits(0d) || bits == Double.doubleToLongBits(1d)) op(0x0e + (int) value);
+            else ldc2(value);
+        }
+
+        private void ldc(Object value) {
+            int index = constant(value);
+            if (index < 256) op2(0x12, index);
+            else op3(0x13, index);
+        }
+
+        private void ldc2(Object value) {
+            op3(0x14, constant(value));
+        }
+
+        /** A load or store of local {@code index}; {@code opcode} is the form with an index operand. */
+        private void varInsn(int opcode, int index) {
+            if (index < 256) {
+                op2(opcode, index);
+            } else {
+                op(0xc4);                           // wide
+                op3(opcode, index);
+            }
+        }
+
+        private void op(int opcode) {
+            ensure(1);
+            code[length++] = (byte) opcode;
+        }
+
+        private void op2(int opcode, int operand) {
+            ensure(2);
+            code[length++] = (byte) opcode;
+            code[length++] = (byte) operand;
+        }
+
+        private void op3(int opcode, int operand) {
+            ensure(3);
+            code[length++] = (byte) opcode;
+            code[length++] = (byte) (operand >> 8);
+            code[length++] = (byte) operand;
+        }
+
+        private void ensure(int n) {
+            if (length + n > code.length) code = Arrays.copyOf(code, Math.max(2 * code.length, length + n));
+        }
+
+        private int constant(Object value) {
+            Integer index = constants.get(value);
+            if (index != null) return index;
+            try {
+                if (value instanceof String s) {
+                    int string = utf8(s);
+                    pool.writeByte(8);
+                    pool.writeShort(string);
+                } else if (value instanceof Integer i) {
+                    pool.writeByte(3);
+                    pool.writeInt(i);
+                } else if (value instanceof Float f) {
+                    pool.writeByte(4);
+                    pool.writeFloat(f);
+                } else if (value instanceof Long l) {
+                    pool.writeByte(5);
+                    pool.writeLong(l);
+                } else {
+                    pool.writeByte(6);
+                    pool.writeDouble((Double) value);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            index = poolCount;
+            poolCount += value instanceof Long || value instanceof Double ? 2 : 1;
+            constants.put(value, index);
+            return index;
+        }
+
+        private int utf8(String s) {
+            Integer index = utf8.get(s);
+            if (index != null) return index;
+            try {
+                pool.writeByte(1);
+                pool.writeUTF(s);
+            } catch (IOException e) {
+                // writeUTF refuses strings over 65535 bytes.
+                throw new IllegalArgumentException("String literal too long to compile", e);
+            }
+            utf8.put(s, poolCount);
+            return poolCount++;
+        }
+
+        private int classRef(String name) throws IOException {
+            int n = utf8(name);
+            pool.writeByte(7);
+            pool.writeShort(n);
+            return poolCount++;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * The primitive types of the checked dialect, plus String. Whether a literal can be
+ * assigned to a declared type is looked up in a matrix computed once when the class loads.
+ * Int literals get one column per {@code Utils.RANGE_*} value, so narrowing to byte and
+ * short is a lookup as well.
+ */
+public enum DataType {
+    BYTE("byte"), SHORT("short"), INT("int"), LONG("long"),
+    FLOAT("float"), DOUBLE("double"), CHAR("char"), BOOLEAN("boolean"), STRING("String");
+
+    private static final DataType[] VALUES = values();
+    private static final int INT_COLUMNS = VALUES.length;
+    private static final boolean[][] ASSIGNABLE = new boolean[VALUES.length][VALUES.length + Utils.RANGE_NONE + 1];
+
+    static {
+        for (DataType declared : VALUES) {
+            for (DataType actual : VALUES) {
+                if (actual == INT) {
+                    for (int range = Utils.RANGE_BYTE; range <= Utils.RANGE_NONE; range++) {
+                        ASSIGNABLE[declared.ordinal()][INT_COLUMNS + range] = accepts(declared, INT, range);
+                    }
+                } else {
+                    ASSIGNABLE[declared.ordinal()][actual.ordinal()] = accepts(declared, actual, Utils.RANGE_NONE);
+                }
+            }
+        }
+    }
+
+    /** The assignment rules the matrix is built from. */
+    private static boolean accepts(DataType declared, DataType actual, int range) {
+        if (declared == actual) return true;
+        if (declared == STRING || actual == STRING) return false;
+        if (declared == CHAR || actual == CHAR) return false;
+        if (declared == BOOLEAN || actual == BOOLEAN) return false;
+
+        if (actual == INT) {
+            return switch (declared) {
+                case BYTE  -> range <= Utils.RANGE_BYTE;
+                case SHORT -> range <= Utils.RANGE_SHORT;
+                case LONG, FLOAT, DOUBLE -> range <= Utils.RANGE_LONG;
+                default -> false;
+            };
+        }
+        return declared == DOUBLE && (actual == LONG || actual == FLOAT);
+    }
+
+    public final String keyword;
+
+    DataType(String keyword) {
+        this.keyword = keyword;
+    }
+
+    /** Whether a literal scanned by {@link Utils#scanLiteral} may be assigned to this type. */
+    public boolean accepts(Utils.Literal lit) {
+        int column = lit.type == INT ? INT_COLUMNS + lit.range : lit.type.ordinal();
+        return ASSIGNABLE[ordinal()][column];
+    }
+
+    /** Returns the type named by {@code s[from, to)}, or null if it is not a type keyword. */
+    public static DataType of(CharSequence s, int from, int to) {
+        for (DataType t : VALUES) {
+            String k = t.keyword;
+            if (k.length() != to - from) continue;
+            int i = 0;
+            while (i < k.length() && s.charAt(from + i) == k.charAt(i)) i++;
+            if (i == k.length()) return t;
+        }
+        return null;
+    }
+
+    public static DataType of(CharSequence s) {
+        return of(s, 0, s.length());
+    }
+
+    @Override
+    public String toString() { return keyword; }
+}
@@ -0,0 +1,27 @@
+public class Diagnostic {
+
+    public enum Phase {
+        LEXICAL("Lexical"),
+        SYNTAX("Syntax"),
+        SEMANTIC("Semantic");
+
+        public final String label;
+
+        Phase(String label) { this.label = label; }
+    }
+
+    public final Phase phase;
+    public final int line;
+    public final String message;
+
+    public Diagnostic(Phase phase, int line, String message) {
+        this.phase = phase;
+        this.line = line;
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return phase.label + " Error (Line " + line + "): " + message;
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * How many errors an analysis may report before it gives up: in all, and in each phase.
+ * A phase stops as soon as it reports the error that reaches a limit, and no later phase
+ * runs, so a binary or badly corrupted file costs little more than its first few lines.
+ * Limits are immutable; {@link #NONE} sets none.
+ */
+public final class DiagnosticLimits {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final int PHASES = Diagnostic.Phase.values().length;
+
+    public static final DiagnosticLimits NONE = new DiagnosticLimits(UNLIMITED);
+
+    /** Stops at the first error. */
+    public static final DiagnosticLimits FAIL_FAST = new DiagnosticLimits(1);
+
+    private final int maxErrors;
+    private final int[] perPhase;
+
+    /** At most {@code maxErrors} errors in all, with no limit per phase. */
+    public DiagnosticLimits(int maxErrors) {
+        this(maxErrors, filled(UNLIMITED));
+    }
+
+    private DiagnosticLimits(int maxErrors, int[] perPhase) {
+        if (maxErrors < 1) throw new IllegalArgumentException("maxErrors must be at least 1");
+        this.maxErrors = maxErrors;
+        this.perPhase = perPhase;
+    }
+
+    /** These limits, with at most {@code max} errors in {@code phase}. */
+    public DiagnosticLimits withPhaseLimit(Diagnostic.Phase phase, int max) {
+        if (max < 1) throw new IllegalArgumentException("max must be at least 1");
+        int[] copy = perPhase.clone();
+        copy[phase.ordinal()] = max;
+        return new DiagnosticLimits(maxErrors, copy);
+    }
+
+    /** These limits, with at most {@code max} errors in every phase. */
+    public DiagnosticLimits withPhaseLimit(int max) {
+        if (max < 1) throw new IllegalArgumentException("max must be at least 1");
+        return new DiagnosticLimits(maxErrors, filled(max));
+    }
+
+    public int maxErrors() { return maxErrors; }
+    public int maxErrors(Diagnostic.Phase phase) { return perPhase[phase.ordinal()]; }
+
+    public boolean isUnlimited() {
+        if (maxErrors != UNLIMITED) return false;
+        for (int max : perPhase) {
+            if (max != UNLIMITED) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Thrown by the lists and sinks these limits hand out once they have taken the error that
+     * reaches a limit. It unwinds the phase that reported the error.
+     */
+    public static final class LimitReached extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public final Diagnostic.Phase phase;
+
+        LimitReached(Diagnostic.Phase phase) {
+            super(phase.label + " error limit reached", null, false, false);
+            this.phase = phase;
+        }
+    }
+
+    /**
+     * A list to collect the errors of {@code phase} in, after {@code reported} errors of
+     * earlier phases. Its {@code add} throws {@link LimitReached} once the list holds as many
+     * errors as allowed.
+     */
+    List<Diagnostic> newList(Diagnostic.Phase phase, int reported) {
+        int cap = Math.min(perPhase[phase.ordinal()], maxErrors == UNLIMITED ? UNLIMITED : maxErrors - reported);
+        return cap == UNLIMITED ? new ArrayList<>() : new Bounded(phase, cap);
+    }
+
+    /**
+     * A list for the errors a phase finds in one chunk of the source, before they are added to
+     * {@code errors}. If {@code errors} is bounded the chunk stops once it alone has found
+     * enough to reach the bound, since later errors in it would never be kept.
+     */
+    static List<Diagnostic> newChunkList(List<Diagnostic> errors) {
+        if (errors instanceof Bounded b) return new Bounded(b.phase, b.cap - b.size());
+        return new ArrayList<>();
+    }
+
+    /**
+     * Passes diagnostics on to {@code sink}, then throws {@link LimitReached} after the one
+     * that reaches a limit. For analyzers that report as they go instead of into a list.
+     */
+    public Consumer<Diagnostic> limit(Consumer<Diagnostic> sink) {
+        if (isUnlimited()) return sink;
+        int[] counts = new int[PHASES];
+        int[] total = new int[1];
+        return d -> {
+            sink.accept(d);
+            if (++counts[d.phase.ordinal()] >= perPhase[d.phase.ordinal()] || ++total[0] >= maxErrors) {
+                throw new LimitReached(d.phase);
+            }
+        };
+    }
+
+    /** Whether a finished analysis that found {@code result}'s errors would have been stopped by these limits. */
+    boolean reachedBy(AnalysisResult result) {
+        if (isUnlimited()) return false;
+        if (result.diagnostics().size() >= maxErrors) return true;
+        for (Diagnostic.Phase phase : Diagnostic.Phase.values()) {
+            if (result.diagnostics(phase).size() >= perPhase[phase.ordinal()]) return true;
+        }
+        return false;
+    }
+
+    private static int[] filled(int max) {
+        int[] a = new int[PHASES];
+        Arrays.fill(a, max);
+        return a;
+    }
+
+    private static final class Bounded extends AbstractList<Diagnostic> {
+        final Diagnostic.Phase phase;
+        final int cap;
+        private final List<Diagnostic> items = new ArrayList<>();
+
+        Bounded(Diagnostic.Phase phase, int cap) {
+            this.phase = phase;
+            this.cap = cap;
+        }
+
+        @Override
+        public boolean add(Diagnostic d) {
+            if (items.size() >= cap) throw new LimitReached(phase);
+            items.add(d);
+            if (items.size() == cap) throw new LimitReached(phase);
+            return true;
+        }
+
+        @Override public Diagnostic get(int i) { return items.get(i); }
+        @Override public int size() { return items.size(); }
+    }
+}
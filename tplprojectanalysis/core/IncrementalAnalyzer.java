@@ -0,0 +1,187 @@
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Keeps lexical, syntax and semantic results per line so that an edit only re-analyzes the
+ * lines it touched. Results match {@link StreamingAnalyzer} on the same text. Each line is
+ * checked on its own, and a line gets a semantic check only if it lexed and parsed cleanly.
+ *
+ * <p>Semantic results are indexed by variable name. For each name we know every line that
+ * declares or assigns it. The line that defines it is its first compatible declaration,
+ * which is what the sequential symbol table would hold. An edit looks again only at the
+ * names on the removed or inserted lines. All lines using a name are re-checked only when
+ * the edit changes the line that defines it. Otherwise only the inserted lines are checked.
+ */
+public class IncrementalAnalyzer {
+
+    private static final class Line {
+        int index;
+        final TokenStream tokens;
+        final List<Diagnostic> diagnostics;
+        // Set only for lines that take part in semantic analysis.
+        String name;
+        DataType type;
+        boolean declaration;
+        boolean compatible;
+        Utils.Literal literal;
+        String semanticError;
+
+        Line(TokenStream tokens, List<Diagnostic> diagnostics) {
+            this.tokens = tokens;
+            this.diagnostics = diagnostics;
+        }
+    }
+
+    private static final class Name {
+        final Set<Line> uses = new HashSet<>();
+        final Set<Line> declarations = new HashSet<>();
+        Line definition;
+    }
+
+    private final Lexer lexer = new Lexer();
+    private final Parser parser = new Parser();
+    private final List<Line> lines = new ArrayList<>();
+    private final Map<String, Name> names = new HashMap<>();
+
+    public IncrementalAnalyzer() {
+        lines.add(analyzeLine(""));
+    }
+
+    /** Re-analyzes everything, e.g. after the whole document was replaced. */
+    public void reset(CharSequence text) {
+        replaceLines(0, lines.size(), splitLines(text));
+    }
+
+    /** The lines of {@code text}, without their '\n'. Text ending in '\n' ends with an empty line. */
+    public static List<CharSequence> splitLines(CharSequence text) {
+        List<CharSequence> all = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                all.add(text.subSequence(start, i));
+                start = i + 1;
+            }
+        }
+        all.add(text.subSequence(start, text.length()));
+        return all;
+    }
+
+    /**
+     * Lines {@code [first, first + removed)} (0-based) were replaced by {@code inserted}.
+     * Only the inserted lines are lexed and parsed again.
+     */
+    public void replaceLines(int first, int removed, List<? extends CharSequence> inserted) {
+        Set<String> affected = new HashSet<>();
+
+        List<Line> old = lines.subList(first, first + removed);
+        for (Line line : old) {
+            if (line.name != null) {
+                affected.add(line.name);
+                Name n = names.get(line.name);
+                n.uses.remove(line);
+                n.declarations.remove(line);
+            }
+        }
+        old.clear();
+
+        List<Line> fresh = new ArrayList<>(inserted.size());
+        for (CharSequence text : inserted) {
+            Line line = analyzeLine(text);
+            fresh.add(line);
+            if (line.name != null) {
+                affected.add(line.name);
+                Name n = names.computeIfAbsent(line.name, k -> new Name());
+                n.uses.add(line);
+                if (line.declaration && line.compatible) n.declarations.add(line);
+            }
+        }
+        lines.addAll(first, fresh);
+
+        int end = removed == inserted.size() ? first + fresh.size() : lines.size();
+        for (int i = first; i < end; i++) lines.get(i).index = i;
+
+        for (String name : affected) resolve(name);
+        for (Line line : fresh) {
+            if (line.name != null) check(line, names.get(line.name).definition);
+        }
+    }
+
+    public int lineCount() { return lines.size(); }
+
+    /** The text of line {@code index} (0-based), as it was passed in. */
+    public CharSequence lineText(int index) { return lines.get(index).tokens.source(); }
+
+    /** Visits the current diagnostics in line order. */
+    public void forEachDiagnostic(Consumer<Diagnostic> action) {
+        for (Line line : lines) {
+            for (Diagnostic d : line.diagnostics) action.accept(new Diagnostic(d.phase, line.index + 1, d.message));
+            if (line.semanticError != null) {
+                action.accept(new Diagnostic(Diagnostic.Phase.SEMANTIC, line.index + 1, line.semanticError));
+            }
+        }
+    }
+
+    public List<Diagnostic> diagnostics() {
+        List<Diagnostic> all = new ArrayList<>();
+        forEachDiagnostic(all::add);
+        return all;
+    }
+
+    public Map<String, DataType> symbolTable() {
+        Map<String, DataType> table = new HashMap<>();
+        names.forEach((name, n) -> {
+            if (n.definition != null) table.put(name, n.definition.type);
+        });
+        return table;
+    }
+
+    private Line analyzeLine(CharSequence text) {
+        TokenStream tokens = new TokenStream(text);
+        List<Diagnostic> diagnostics = new ArrayList<>(0);
+        // Diagnostics are stored against line 0 and renumbered when they are read back.
+        boolean lexed = lexer.lexLine(text, 0, text.length(), 0, tokens, diagnostics);
+        boolean parsed = parser.parse(tokens, diagnostics);
+        tokens.trimToSize();
+        Line line = new Line(tokens, diagnostics);
+        if (!lexed || !parsed || tokens.size() == 0) return line;
+
+        int assign = tokens.indexOf(TokenKind.ASSIGNMENT_OPERATOR, 0, tokens.size());
+        line.literal = new Utils.Literal();
+        tokens.literal(assign + 1, line.literal);
+        if (assign >= 2) {
+            line.declaration = true;
+            line.type = DataType.of(text, tokens.start(0), tokens.end(0));
+            line.name = tokens.text(1);
+            line.compatible = line.type.accepts(line.literal);
+        } else {
+            line.name = tokens.text(0);
+        }
+        return line;
+    }
+
+    /** Finds the line that defines {@code name} and re-checks its uses if that line changed. */
+    private void resolve(String name) {
+        Name n = names.get(name);
+        if (n.uses.isEmpty()) {
+            names.remove(name);
+            return;
+        }
+        Line def = null;
+        for (Line line : n.declarations) {
+            if (def == null || line.index < def.index) def = line;
+        }
+        if (def == n.definition) return;
+        n.definition = def;
+        for (Line line : n.uses) check(line, def);
+    }
+
+    private static void check(Line line, Line def) {
+        boolean declaredBefore = def != null && def.index < line.index;
+        if (line.declaration) {
+            line.semanticError = declaredBefore ? "Redeclaration" : line.compatible ? null : "Type mismatch";
+        } else {
+            line.semanticError = !declaredBefore ? "Variable not declared"
+                    : def.type.accepts(line.literal) ? null : "Type mismatch";
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs a program that passed all three phases without generating classes, for when
+ * {@link CodeGenerator} is not wanted. The statements are lowered once to a register
+ * bytecode in which every variable is a register number, resolved from the symbol table.
+ * Registers live in three banks: {@code long[]} for the integral types, char and boolean,
+ * {@code double[]} for float and double, and {@code Object[]} for String. Running the
+ * bytecode allocates nothing but the banks.
+ *
+ * <p>An instruction is two ints: the opcode in the low 8 bits of the first with the
+ * register above it, then the index of a constant in the pool of the register's bank.
+ */
+public final class Interpreter {
+    static final int LOAD_LONG = 0;
+    static final int LOAD_DOUBLE = 1;
+    static final int LOAD_OBJECT = 2;
+
+    private static final int MAX_REGISTER = (1 << 24) - 1;
+
+    private Interpreter() {}
+
+    /** Lowered statements and their constants. It can be run any number of times, from any thread. */
+    public static final class Program {
+        private final int[] code;
+        private final long[] longConstants;
+        private final double[] doubleConstants;
+        private final Object[] objectConstants;
+        private final int[] bankSizes;
+        private final String[] names;
+        private final DataType[] types;
+        private final int[] registers;
+
+        Program(int[] code, long[] longConstants, double[] doubleConstants, Object[] objectConstants,
+                int[] bankSizes, String[] names, DataType[] types, int[] registers) {
+            this.code = code;
+            this.longConstants = longConstants;
+            this.doubleConstants = doubleConstants;
+            this.objectConstants = objectConstants;
+            this.bankSizes = bankSizes;
+            this.names = names;
+            this.types = types;
+            this.registers = registers;
+        }
+
+        /** Runs the program and returns the final value of each variable, in declaration order. */
+        public Map<String, Object> run() {
+            long[] longs = new long[bankSizes[LOAD_LONG]];
+            double[] doubles = new double[bankSizes[LOAD_DOUBLE]];
+            Object[] objects = new Object[bankSizes[LOAD_OBJECT]];
+            execute(longs, doubles, objects);
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int v = 0; v < names.length; v++) {
+                int r = registers[v];
+                values.put(names[v], switch (types[v]) {
+                    case BYTE -> (byte) longs[r];
+                    case SHORT -> (short) longs[r];
+                    case INT -> (int) longs[r];
+                    case CHAR -> (char) longs[r];
+                    case BOOLEAN -> longs[r] != 0;
+                    case LONG -> longs[r];
+                    case FLOAT -> (float) doubles[r];
+                    case DOUBLE -> doubles[r];
+                    case STRING -> objects[r];
+                });
+            }
+            return values;
+        }
+
+        /** The dispatch loop. */
+        void execute(long[] longs, double[] doubles, Object[] objects) {
+            int[] code = this.code;
+            for (int pc = 0; pc < code.length; pc += 2) {
+                int insn = code[pc];
+                int k = code[pc + 1];
+                switch (insn & 0xff) {
+                    case LOAD_LONG -> longs[insn >>> 8] = longConstants[k];
+                    case LOAD_DOUBLE -> doubles[insn >>> 8] = doubleConstants[k];
+                    case LOAD_OBJECT -> objects[insn >>> 8] = objectConstants[k];
+                    default -> throw new IllegalStateException("Bad opcode " + (insn & 0xff) + " at " + pc);
+                }
+            }
+        }
+
+        /** The number of instructions. */
+        public int size() { return code.length / 2; }
+    }
+
+    /** The constants of one bank, each kept once. */
+    private static final class Pool {
+        final Map<Object, Integer> index = new HashMap<>();
+        Object[] values = new Object[16];
+        int size;
+
+        int add(Object value) {
+            Integer i = index.get(value);
+            if (i != null) return i;
+            if (size == values.length) values = Arrays.copyOf(values, 2 * size);
+            values[size] = value;
+            index.put(value, size);
+            return size++;
+        }
+    }
+
+    public static Program lower(AnalysisResult result) {
+        return lower(result, Progress.NONE);
+    }
+
+    /**
+     * Lowers {@code result}, which must have passed every phase. Throws IllegalArgumentException
+     * if it has not, or if an integer literal the checker let through does not fit its type.
+     */
+    public static Program lower(AnalysisResult result, Progress progress) {
+        if (!result.isSuccess()) throw new IllegalArgumentException("Only a program without errors can be run");
+        TokenStream tokens = result.tokens();
+        CharSequence src = tokens.source();
+        Map<String, DataType> symbols = result.symbolTable();
+        int total = tokens.size() == 0 ? 0 : tokens.line(tokens.size() - 1);
+
+        // Registers are numbered per bank in declaration order.
+        Map<String, Integer> registers = new LinkedHashMap<>();
+        int[] bankSizes = new int[LOAD_OBJECT + 1];
+        Pool[] pools = { new Pool(), new Pool(), new Pool() };
+        int[] code = new int[64];
+        int length = 0;
+        Utils.Literal literal = new Utils.Literal();
+
+        int statements = 0;
+        for (int from = 0, to; from < tokens.size(); from = to) {
+            to = tokens.statementEnd(from);
+            int line = tokens.line(from);
+            if (++statements % Progress.INTERVAL == 0) Progress.checkpoint(progress, line, total);
+
+            int assign = tokens.indexOf(TokenKind.ASSIGNMENT_OPERATOR, from, to);
+            String name = tokens.text(assign - 1);
+            DataType type = symbols.get(name);
+            int bank = bankOf(type);
+            Integer register = registers.get(name);
+            if (register == null) {
+                if (bankSizes[bank] > MAX_REGISTER) throw new IllegalArgumentException("Too many variables to run");
+                register = bankSizes[bank]++;
+                registers.put(name, register);
+            }
+
+            int vs = tokens.start(assign + 1), ve = tokens.end(assign + 1);
+            Utils.scanLiteral(src, vs, ve, literal);
+            if (!Utils.fits(literal, type)) {
+                throw new IllegalArgumentException("Line " + line + ": value of " + name + " does not fit in " + type);
+            }
+            Object value = switch (type) {
+                case BYTE, SHORT, INT, LONG -> literal.value;
+                case CHAR -> (long) Utils.charValue(src, vs + 1, ve - 1);
+                case BOOLEAN -> src.charAt(vs) == 't' ? 1L : 0L;
+                case FLOAT -> (double) Utils.floatValue(src, vs, ve, literal);
+                case DOUBLE -> Utils.doubleValue(src, vs, ve, literal);
+                case STRING -> Utils.stringValue(src, vs + 1, ve - 1);
+            };
+
+            if (length == code.length) code = Arrays.copyOf(code, 2 * length);
+            code[length++] = register << 8 | bank;
+            code[length++] = pools[bank].add(value);
+        }
+
+        long[] longConstants = new long[pools[LOAD_LONG].size];
+        for (int i = 0; i < longConstants.length; i++) longConstants[i] = (Long) pools[LOAD_LONG].values[i];
+        double[] doubleConstants = new double[pools[LOAD_DOUBLE].size];
+        for (int i = 0; i < doubleConstants.length; i++) doubleConstants[i] = (Double) pools[LOAD_DOUBLE].values[i];
+        Object[] objectConstants = Arrays.copyOf(pools[LOAD_OBJECT].values, pools[LOAD_OBJECT].size);
+
+        String[] names = registers.keySet().toArray(new String[0]);
+        DataType[] types = new DataType[names.length];
+        int[] numbers = new int[names.length];
+        for (int v = 0; v < names.length; v++) {
+            types[v] = symbols.get(names[v]);
+            numbers[v] = registers.get(names[v]);
+        }
+        return new Program(Arrays.copyOf(code, length), longConstants, doubleConstants, objectConstants,
+                bankSizes, names, types, numbers);
+    }
+
+    /** The bank holding variables of {@code type}, numbered like the opcode that loads it. */
+    private static int bankOf(DataType type) {
+        return switch (type) {
+            case BYTE, SHORT, INT, LONG, CHAR, BOOLEAN -> LOAD_LONG;
+            case FLOAT, DOUBLE -> LOAD_DOUBLE;
+            case STRING -> LOAD_OBJECT;
+        };
+    }
+}
@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for {@link LanguageServer}. Objects are read as {@code Map<String, Object>},
+ * arrays as {@code List<Object>}, numbers as Long when they have no fraction or exponent and
+ * Double otherwise, and {@code null} as null. {@link #write} takes the same types, plus any
+ * other Number.
+ */
+public final class Json {
+    private final String s;
+    private int i;
+
+    private Json(String s) {
+        this.s = s;
+    }
+
+    /** Parses one JSON value. Throws IllegalArgumentException if {@code s} is not exactly that. */
+    public static Object parse(String s) {
+        Json p = new Json(s);
+        Object value = p.value();
+        p.skipSpace();
+        if (p.i != s.length()) throw p.error("end of input");
+        return value;
+    }
+
+    public static String write(Object value) {
+        StringBuilder sb = new StringBuilder();
+        write(value, sb);
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void write(Object value, StringBuilder sb) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String str) {
+            quote(str, sb);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            sb.append('{');
+            String sep = "";
+            for (Map.Entry<String, Object> e : ((Map<String, Object>) map).entrySet()) {
+                sb.append(sep);
+                quote(e.getKey(), sb);
+                sb.append(':');
+                write(e.getValue(), sb);
+                sep = ",";
+            }
+            sb.append('}');
+        } else if (value instanceof List<?> list) {
+            sb.append('[');
+            for (int k = 0; k < list.size(); k++) {
+                if (k > 0) sb.append(',');
+                write(list.get(k), sb);
+            }
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as JSON");
+        }
+    }
+
+    private static void quote(String str, StringBuilder sb) {
+        sb.append('"');
+        for (int k = 0; k < str.length(); k++) {
+            char c = str.charAt(k);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private Object value() {
+        skipSpace();
+        if (i >= s.length()) throw error("a value");
+        char c = s.charAt(i);
+        switch (c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return number();
+                throw error("a value");
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        i++;
+        skipSpace();
+        if (peek() == '}') {
+            i++;
+            return map;
+        }
+        while (true) {
+            skipSpace();
+            if (peek() != '"') throw error("a member name");
+            String key = string();
+            skipSpace();
+            expect(':');
+            map.put(key, value());
+            skipSpace();
+            if (peek() == ',') {
+                i++;
+            } else {
+                expect('}');
+                return map;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        i++;
+        skipSpace();
+        if (peek() == ']') {
+            i++;
+            return list;
+        }
+        while (true) {
+            list.add(value());
+            skipSpace();
+            if (peek() == ',') {
+                i++;
+            } else {
+                expect(']');
+                return list;
+            }
+        }
+    }
+
+    private String string() {
+        i++;
+        StringBuilder sb = null;
+        int start = i;
+        while (true) {
+            if (i >= s.length()) throw error("'\"'");
+            char c = s.charAt(i);
+            if (c == '"') {
+                String tail = s.substring(start, i++);
+                return sb == null ? tail : sb.append(tail).toString();
+            }
+            if (c != '\\') {
+                i++;
+                continue;
+            }
+            if (sb == null) sb = new StringBuilder();
+            sb.append(s, start, i);
+            if (i + 1 >= s.length()) throw error("an escape");
+            char e = s.charAt(i + 1);
+            i += 2;
+            switch (e) {
+                case '"', '\\', '/' -> sb.append(e);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (i + 4 > s.length()) throw error("four hex digits");
+                    try {
+                        sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("four hex digits");
+                    }
+                    i += 4;
+                }
+                default -> throw error("an escape");
+            }
+            start = i;
+        }
+    }
+
+    private Number number() {
+        int start = i;
+        boolean integral = true;
+        if (peek() == '-') i++;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                i++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                integral = false;
+                i++;
+            } else {
+                break;
+            }
+        }
+        String text = s.substring(start, i);
+        try {
+            if (integral) return Long.parseLong(text);
+            return Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            i = start;
+            throw error("a number");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!s.startsWith(word, i)) throw error("a value");
+        i += word.length();
+        return value;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) throw error("'" + c + "'");
+        i++;
+    }
+
+    private char peek() {
+        return i < s.length() ? s.charAt(i) : 0;
+    }
+
+    private void skipSpace() {
+        while (i < s.length() && (s.charAt(i) == ' ' || s.charAt(i) == '\t' || s.charAt(i) == '\n' || s.charAt(i) == '\r')) i++;
+    }
+
+    private IllegalArgumentException error(String expected) {
+        return new IllegalArgumentException("Expected " + expected + " at offset " + i + " of JSON input");
+    }
+}
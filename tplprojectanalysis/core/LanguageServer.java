@@ -0,0 +1,346 @@
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A long-running analyzer that speaks the Language Server Protocol: JSON-RPC 2.0 messages,
+ * each preceded by a {@code Content-Length} header, over stdin/stdout or a socket on the
+ * loopback address. The JVM and the analyzers stay warm between requests.
+ *
+ * <pre>java LanguageServer [--port N]</pre>
+ *
+ * Each open document is kept in an {@link IncrementalAnalyzer}. {@code textDocument/didOpen}
+ * and {@code didChange} are answered with {@code textDocument/publishDiagnostics}, and
+ * changes may be incremental, so an edit re-analyzes only the lines it touches. Diagnostics
+ * are therefore per line, as in Live Analysis.
+ *
+ * <p>For build tools there is also the request {@code tpl/analyze}, which takes
+ * {@code {"text": ...}} and returns the whole-file diagnostics and symbol table that
+ * {@link Pipeline#run} finds, as BatchAnalyzer prints them.
+ *
+ * <p>With {@code --port} every connection is a separate session with its own documents,
+ * served on its own thread. {@code exit} ends the session; on stdin/stdout it also ends the
+ * process, with status 0 if {@code shutdown} came first and 1 otherwise.
+ */
+public class LanguageServer {
+    // JSON-RPC error codes.
+    static final int PARSE_ERROR = -32700;
+    static final int INVALID_REQUEST = -32600;
+    static final int METHOD_NOT_FOUND = -32601;
+    static final int INVALID_PARAMS = -32602;
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final Map<String, IncrementalAnalyzer> documents = new HashMap<>();
+    private final Pipeline pipeline = new Pipeline(ForkJoinPool.commonPool());
+    private boolean shutdown;
+
+    public LanguageServer(InputStream in, OutputStream out) {
+        this.in = new BufferedInputStream(in);
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println("Usage: java LanguageServer [--port N]");
+                System.exit(2);
+            }
+        }
+
+        if (port < 0) {
+            LanguageServer server = new LanguageServer(System.in, System.out);
+            System.exit(server.serve() ? 0 : 1);
+        }
+        try (ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.err.println("Listening on " + socket.getLocalSocketAddress());
+            while (true) {
+                Socket client = socket.accept();
+                Thread session = new Thread(() -> {
+                    try (client) {
+                        new LanguageServer(client.getInputStream(), client.getOutputStream()).serve();
+                    } catch (IOException ex) {
+                        System.err.println("Session ended: " + ex.getMessage());
+                    }
+                }, "tpl-session-" + client.getPort());
+                session.setDaemon(true);
+                session.start();
+            }
+        }
+    }
+
+    /**
+     * Handles messages until {@code exit} or the end of the input. Returns whether
+     * {@code shutdown} was requested first.
+     */
+    public boolean serve() throws IOException {
+        while (true) {
+            String body = readMessage();
+            if (body == null) return shutdown;
+
+            Map<String, Object> message;
+            try {
+                message = asObject(Json.parse(body));
+            } catch (IllegalArgumentException ex) {
+                respondError(null, PARSE_ERROR, ex.getMessage());
+                continue;
+            }
+            Object id = message.get("id");
+            boolean request = message.containsKey("id");
+            if (!(message.get("method") instanceof String method)) {
+                // A response to a request of ours; the server sends none.
+                if (request && !message.containsKey("result") && !message.containsKey("error")) {
+                    respondError(id, INVALID_REQUEST, "Missing method");
+                }
+                continue;
+            }
+            if (method.equals("exit")) return shutdown;
+
+            try {
+                Object result = handle(method, message.get("params"));
+                if (request) respond(id, result);
+            } catch (UnknownMethod ex) {
+                if (request) respondError(id, METHOD_NOT_FOUND, "Unknown method " + method);
+            } catch (IllegalArgumentException | ClassCastException | IndexOutOfBoundsException | NullPointerException ex) {
+                if (request) respondError(id, INVALID_PARAMS, String.valueOf(ex.getMessage()));
+                else System.err.println(method + ": " + ex);
+            }
+        }
+    }
+
+    private static final class UnknownMethod extends RuntimeException {
+        UnknownMethod() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** Handles one request or notification, returning the result of a request. */
+    private Object handle(String method, Object params) throws IOException {
+        switch (method) {
+            case "initialize": {
+                Map<String, Object> sync = new LinkedHashMap<>();
+                sync.put("openClose", true);
+                sync.put("change", 2);              // incremental
+                Map<String, Object> capabilities = new LinkedHashMap<>();
+                capabilities.put("textDocumentSync", sync);
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("capabilities", capabilities);
+                result.put("serverInfo", Map.of("name", "tpl-analyzer", "version", String.valueOf(Pipeline.VERSION)));
+                return result;
+            }
+            case "initialized":
+                return null;
+            case "shutdown":
+                shutdown = true;
+                documents.clear();
+                return null;
+            case "textDocument/didOpen": {
+                Map<String, Object> doc = asObject(asObject(params).get("textDocument"));
+                String uri = (String) doc.get("uri");
+                IncrementalAnalyzer analyzer = new IncrementalAnalyzer();
+                analyzer.reset((String) doc.get("text"));
+                documents.put(uri, analyzer);
+                publish(uri, doc.get("version"), analyzer);
+                return null;
+            }
+            case "textDocument/didChange": {
+                Map<String, Object> p = asObject(params);
+                Map<String, Object> doc = asObject(p.get("textDocument"));
+                String uri = (String) doc.get("uri");
+                IncrementalAnalyzer analyzer = documents.get(uri);
+                if (analyzer == null) throw new IllegalArgumentException("Document not open: " + uri);
+                for (Object change : (List<?>) p.get("contentChanges")) apply(analyzer, asObject(change));
+                publish(uri, doc.get("version"), analyzer);
+                return null;
+            }
+            case "textDocument/didClose": {
+                String uri = (String) asObject(asObject(params).get("textDocument")).get("uri");
+                if (documents.remove(uri) != null) publish(uri, null, null);
+                return null;
+            }
+            case "textDocument/didSave":
+                return null;
+            case "tpl/analyze":
+                return analyze((String) asObject(params).get("text"));
+            default:
+                // Unknown notifications, such as the optional "$/" ones, are ignored.
+                throw new UnknownMethod();
+        }
+    }
+
+    /** Applies one {@code TextDocumentContentChangeEvent}: a range replacement, or the whole text. */
+    static void apply(IncrementalAnalyzer analyzer, Map<String, Object> change) {
+        String text = (String) change.get("text");
+        Object range = change.get("range");
+        if (range == null) {
+            analyzer.reset(text);
+            return;
+        }
+        Map<String, Object> start = asObject(asObject(range).get("start"));
+        Map<String, Object> end = asObject(asObject(range).get("end"));
+        int startLine = toInt(start.get("line")), startChar = toInt(start.get("character"));
+        int endLine = toInt(end.get("line")), endChar = toInt(end.get("character"));
+        int last = analyzer.lineCount() - 1;
+        if (startLine > last) {
+            startLine = last;
+            startChar = Integer.MAX_VALUE;
+        }
+        if (endLine > last) {
+            endLine = last;
+            endChar = Integer.MAX_VALUE;
+        }
+        if (endLine < startLine || (endLine == startLine && endChar < startChar)) {
+            throw new IllegalArgumentException("Range ends before it starts");
+        }
+
+        CharSequence first = analyzer.lineText(startLine);
+        CharSequence tail = analyzer.lineText(endLine);
+        StringBuilder merged = new StringBuilder();
+        merged.append(first, 0, Math.min(startChar, first.length()));
+        merged.append(text);
+        merged.append(tail, Math.min(endChar, tail.length()), tail.length());
+        List<CharSequence> lines = new ArrayList<>();
+        for (CharSequence line : IncrementalAnalyzer.splitLines(merged)) lines.add(line.toString());
+        analyzer.replaceLines(startLine, endLine - startLine + 1, lines);
+    }
+
+    private void publish(String uri, Object version, IncrementalAnalyzer analyzer) throws IOException {
+        List<Object> diagnostics = new ArrayList<>();
+        if (analyzer != null) {
+            analyzer.forEachDiagnostic(d -> {
+                int line = d.line - 1;
+                Map<String, Object> range = new LinkedHashMap<>();
+                range.put("start", position(line, 0));
+                range.put("end", position(line, analyzer.lineText(line).length()));
+                Map<String, Object> diagnostic = new LinkedHashMap<>();
+                diagnostic.put("range", range);
+                diagnostic.put("severity", 1);      // error
+                diagnostic.put("source", "tpl");
+                diagnostic.put("code", d.phase.label.toLowerCase());
+                diagnostic.put("message", d.phase.label + " Error: " + d.message);
+                diagnostics.add(diagnostic);
+            });
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("uri", uri);
+        if (version != null) params.put("version", version);
+        params.put("diagnostics", diagnostics);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("method", "textDocument/publishDiagnostics");
+        message.put("params", params);
+        send(message);
+    }
+
+    private Map<String, Object> analyze(String text) {
+        if (text == null) throw new IllegalArgumentException("Missing text");
+        AnalysisResult result = pipeline.run(text);
+        List<Object> diagnostics = new ArrayList<>();
+        for (Diagnostic d : result.diagnostics()) {
+            Map<String, Object> diagnostic = new LinkedHashMap<>();
+            diagnostic.put("line", d.line);
+            diagnostic.put("phase", d.phase.label.toLowerCase());
+            diagnostic.put("message", d.message);
+            diagnostics.add(diagnostic);
+        }
+        Map<String, Object> symbols = new LinkedHashMap<>();
+        result.symbolTable().forEach((name, type) -> symbols.put(name, type.keyword));
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("success", result.isSuccess());
+        out.put("diagnostics", diagnostics);
+        out.put("symbols", symbols);
+        return out;
+    }
+
+    private static Map<String, Object> position(int line, int character) {
+        Map<String, Object> p = new LinkedHashMap<>();
+        p.put("line", line);
+        p.put("character", character);
+        return p;
+    }
+
+    private void respond(Object id, Object result) throws IOException {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("result", result);
+        send(message);
+    }
+
+    private void respondError(Object id, int code, String text) throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("message", text);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("error", error);
+        send(message);
+    }
+
+    private void send(Map<String, Object> message) throws IOException {
+        byte[] body = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+    }
+
+    /** Reads the next message body, or returns null at the end of the input. */
+    private String readMessage() throws IOException {
+        int length = -1;
+        while (true) {
+            String header = readHeaderLine();
+            if (header == null) return null;
+            if (header.isEmpty()) {
+                if (length >= 0) break;
+                continue;
+            }
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                try {
+                    length = Integer.parseInt(header.substring(colon + 1).trim());
+                } catch (NumberFormatException ex) {
+                    throw new IOException("Bad header: " + header);
+                }
+            }
+        }
+        byte[] body = in.readNBytes(length);
+        if (body.length < length) throw new EOFException("Message cut short");
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private String readHeaderLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int c; (c = in.read()) != '\n'; ) {
+            if (c < 0) return null;
+            if (c != '\r') sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value) {
+        if (!(value instanceof Map)) throw new IllegalArgumentException("Expected an object");
+        return (Map<String, Object>) value;
+    }
+
+    private static int toInt(Object value) {
+        if (!(value instanceof Long n)) throw new IllegalArgumentException("Expected an integer");
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, n));
+    }
+}
@@ -0,0 +1,190 @@
+import java.util.List;
+
+public class Lexer {
+    private TokenStream tokens = new TokenStream("");
+    private List<Diagnostic> diagnostics;
+    private final Utils.Literal literal = new Utils.Literal();
+    private boolean success = false;
+    private int lines;
+
+    /**
+     * Tokenizes {@code src}, adding any lexical errors to {@code errors}. A line without an
+     * assignment operator fails the phase without an error of its own; the parser reports it.
+     */
+    public TokenStream lex(CharSequence src, List<Diagnostic> errors) {
+        return lex(src, errors, Progress.NONE);
+    }
+
+    public TokenStream lex(CharSequence src, List<Diagnostic> errors, Progress progress) {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        tokens = new TokenStream(src);
+        diagnostics = errors;
+        success = true;
+        int before = errors.size();
+        int total = progress == Progress.NONE ? 0
+                : src instanceof LineIndexed indexed ? indexed.lineCount() : countLines(src);
+        int breaks = scanLines(src, 0, src.length(), 1, progress, total);
+        lines = breaks + 1;
+        diagnostics = null;
+        tokens.trimToSize();
+        event.end();
+        event.commit(Diagnostic.Phase.LEXICAL, breaks + 1, tokens.size(), errors.size() - before, success);
+        return tokens;
+    }
+
+    /**
+     * Lexes the lines of {@code src[from, to)} into {@code out}, numbering the first one
+     * {@code firstLine}. {@code from} must start a line, and {@code to} must be the end of the
+     * source or just past a '\n'. Returns the number of line breaks in the range.
+     */
+    public int lexLines(CharSequence src, int from, int to, int firstLine, TokenStream out, List<Diagnostic> errors) {
+        tokens = out;
+        diagnostics = errors;
+        success = true;
+        int breaks = scanLines(src, from, to, firstLine, Progress.NONE, 0);
+        diagnostics = null;
+        return breaks;
+    }
+
+    private int scanLines(CharSequence src, int from, int to, int firstLine, Progress progress, int total) {
+        int lineStart = from;
+        for (int line = firstLine; ; line++) {
+            if (line % Progress.INTERVAL == 0) Progress.checkpoint(progress, line, total);
+            int lineEnd = indexOf(src, '\n', lineStart, to);
+            timedScanLine(src, lineStart, lineEnd < 0 ? to : lineEnd, line);
+            if (lineEnd < 0) return line - firstLine;
+            lineStart = lineEnd + 1;
+            // The empty line after a final '\n' belongs to the next range, if there is one.
+            if (lineStart == to && to < src.length()) return line - firstLine + 1;
+        }
+    }
+
+    /**
+     * Lexes the single line {@code src[from, to)} into {@code out}, for callers that feed the
+     * source line by line instead of holding all of it. Returns whether the line lexed cleanly.
+     */
+    public boolean lexLine(CharSequence src, int from, int to, int line, TokenStream out, List<Diagnostic> errors) {
+        tokens = out;
+        diagnostics = errors;
+        success = true;
+        timedScanLine(src, from, to, line);
+        diagnostics = null;
+        return success;
+    }
+
+    /** Lexes a line, timing it for a {@link SlowStatementEvent} only if it is long enough to be slow. */
+    private void timedScanLine(CharSequence src, int lineStart, int lineEnd, int line) {
+        if (lineEnd - lineStart < SlowStatementEvent.MIN_LENGTH) {
+            scanLine(src, lineStart, lineEnd, line);
+            return;
+        }
+        SlowStatementEvent slow = new SlowStatementEvent();
+        slow.begin();
+        scanLine(src, lineStart, lineEnd, line);
+        slow.end();
+        slow.commit(Diagnostic.Phase.LEXICAL, line, src, lineStart, lineEnd);
+    }
+
+    private void scanLine(CharSequence src, int lineStart, int lineEnd, int line) {
+        int s = skipSpace(src, lineStart, lineEnd);
+        int e = trimEnd(src, s, lineEnd);
+        if (s == e || (e - s >= 2 && src.charAt(s) == '/' && src.charAt(s + 1) == '/')) return;
+
+        boolean semicolon = src.charAt(e - 1) == ';';
+        int stmtEnd = semicolon ? e - 1 : e;
+
+        int eq = -1;
+        for (int i = s; i < stmtEnd; i++) {
+            if (src.charAt(i) == '=') { eq = i; break; }
+        }
+
+        if (eq < 0) {
+            for (int w = skipSpace(src, s, stmtEnd); w < stmtEnd; ) {
+                int we = wordEnd(src, w, stmtEnd);
+                addToken(TokenKind.IDENTIFIER, w, we, line, lineStart);
+                w = skipSpace(src, we, stmtEnd);
+            }
+            success = false;
+        } else {
+            int vs = skipSpace(src, eq + 1, stmtEnd);
+            int ve = trimEnd(src, vs, stmtEnd);
+            boolean valid = Utils.scanLiteral(src, vs, ve, literal);
+            if (!valid) {
+                error(line, "Invalid literal '" + src.subSequence(vs, ve) + "'");
+            }
+
+            int w = skipSpace(src, s, eq);
+            if (w == eq) {
+                error(line, "Invalid identifier ''");
+            } else {
+                // More than one word on the left means "type name [name...]".
+                int we = wordEnd(src, w, eq);
+                int next = skipSpace(src, we, eq);
+                if (next < eq) {
+                    addToken(TokenKind.DATA_TYPE, w, we, line, lineStart);
+                    w = next;
+                }
+            }
+            while (w < eq) {
+                int we = wordEnd(src, w, eq);
+                if (!Utils.isValidId(src, w, we)) {
+                    error(line, "Invalid identifier '" + src.subSequence(w, we) + "'");
+                }
+                addToken(TokenKind.IDENTIFIER, w, we, line, lineStart);
+                w = skipSpace(src, we, eq);
+            }
+
+            addToken(TokenKind.ASSIGNMENT_OPERATOR, eq, eq + 1, line, lineStart);
+            addToken(TokenKind.VALUE, vs, ve, line, lineStart);
+            tokens.setLiteral(tokens.size() - 1, valid, literal);
+        }
+
+        if (semicolon) addToken(TokenKind.DELIMITER, e - 1, e, line, lineStart);
+    }
+
+    private void error(int line, String message) {
+        diagnostics.add(new Diagnostic(Diagnostic.Phase.LEXICAL, line, message));
+        success = false;
+    }
+
+    private void addToken(TokenKind kind, int start, int end, int line, int lineStart) {
+        tokens.add(kind, start, end, line, lineStart);
+    }
+
+    private static int skipSpace(CharSequence src, int i, int end) {
+        while (i < end && src.charAt(i) <= ' ') i++;
+        return i;
+    }
+
+    private static int trimEnd(CharSequence src, int start, int end) {
+        while (end > start && src.charAt(end - 1) <= ' ') end--;
+        return end;
+    }
+
+    private static int wordEnd(CharSequence src, int i, int end) {
+        while (i < end && src.charAt(i) > ' ') i++;
+        return i;
+    }
+
+    private static int countLines(CharSequence src) {
+        int lines = 1;
+        for (int i = 0; i < src.length(); i++) {
+            if (src.charAt(i) == '\n') lines++;
+        }
+        return lines;
+    }
+
+    private static int indexOf(CharSequence src, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (src.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    public TokenStream getTokens() { return tokens; }
+    public boolean isSuccess() { return success; }
+    /** The number of lines in the source the last {@link #lex} call tokenized. */
+    public int lineCount() { return lines; }
+    public void clear() { tokens = new TokenStream(""); }
+}
@@ -0,0 +1,8 @@
+/**
+ * A source that knows how many lines it has without scanning for them, such as a snapshot
+ * of an editor's document that keeps a line index.
+ */
+public interface LineIndexed extends CharSequence {
+    /** One more than the number of '\n' in the source. */
+    int lineCount();
+}
@@ -0,0 +1,95 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 file one line at a time through read-only memory-mapped windows, so the
+ * file is never held on the heap. Each line is decoded into a reused buffer: the value of
+ * {@link #line()} is only valid until the next call to {@link #next()}.
+ */
+public class MappedLineReader implements Closeable {
+    private static final int WINDOW = 64 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private CharBuffer chars = CharBuffer.allocate(256);
+    private int lineNumber;
+
+    public MappedLineReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+    }
+
+    /** Advances to the next line; returns false at end of file. */
+    public boolean next() throws IOException {
+        if (position >= size) return false;
+
+        if (window == null) map(position, WINDOW);
+        int length = WINDOW;
+        int newline = find(window, (int) (position - windowStart));
+        while (newline < 0 && windowStart + window.limit() < size) {
+            if (position == windowStart) {
+                // The line is longer than a whole window; map a bigger one.
+                if (length == Integer.MAX_VALUE) throw new IOException("Line " + (lineNumber + 1) + " is too long");
+                length = (int) Math.min(Integer.MAX_VALUE, 2L * length);
+            }
+            map(position, length);
+            newline = find(window, 0);
+        }
+
+        int from = (int) (position - windowStart);
+        int to = newline >= 0 ? newline : window.limit();
+        decode(from, to);
+        position = windowStart + to + 1;
+        lineNumber++;
+        return true;
+    }
+
+    public CharSequence line() { return chars; }
+    public int lineNumber() { return lineNumber; }
+
+    private void map(long start, int length) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(length, size - start));
+    }
+
+    private static int find(ByteBuffer buf, int from) {
+        for (int i = from, n = buf.limit(); i < n; i++) {
+            if (buf.get(i) == '\n') return i;
+        }
+        return -1;
+    }
+
+    private void decode(int from, int to) {
+        // UTF-8 never produces more chars than bytes.
+        if (chars.capacity() < to - from) chars = CharBuffer.allocate(Math.max(to - from, 2 * chars.capacity()));
+        ByteBuffer in = window.duplicate();
+        in.limit(to).position(from);
+        chars.clear();
+        decoder.reset();
+        decoder.decode(in, chars, true);
+        decoder.flush(chars);
+        chars.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
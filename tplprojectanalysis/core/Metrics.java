@@ -0,0 +1,99 @@
+import java.util.Locale;
+
+/**
+ * Totals of {@link PhaseMetrics} over many analyses, for the batch job to export. Results
+ * served from a cache count as hits and add nothing to the phase totals. Safe to share
+ * between threads.
+ */
+public class Metrics {
+    private static final Diagnostic.Phase[] PHASES = Diagnostic.Phase.values();
+
+    private long files;
+    private long cacheHits;
+    private final long[] runs = new long[PHASES.length];
+    private final long[] wallNanos = new long[PHASES.length];
+    private final long[] cpuNanos = new long[PHASES.length];
+    private final long[] allocatedBytes = new long[PHASES.length];
+    private final long[] lines = new long[PHASES.length];
+    private final long[] tokens = new long[PHASES.length];
+    private final long[] symbols = new long[PHASES.length];
+
+    public synchronized void add(AnalysisResult result) {
+        files++;
+        if (result.isCached()) cacheHits++;
+        for (Diagnostic.Phase phase : PHASES) {
+            PhaseMetrics m = result.metrics(phase);
+            if (m == null) continue;
+            int p = phase.ordinal();
+            runs[p]++;
+            wallNanos[p] += m.wallNanos;
+            cpuNanos[p] += Math.max(0, m.cpuNanos);
+            allocatedBytes[p] += Math.max(0, m.allocatedBytes);
+            lines[p] += m.lines;
+            tokens[p] += m.tokens;
+            symbols[p] += m.symbols;
+        }
+    }
+
+    /** The totals as one JSON object, with a member per phase. */
+    public synchronized String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"files\":").append(files).append(",\"cacheHits\":").append(cacheHits).append(",\"phases\":{");
+        for (Diagnostic.Phase phase : PHASES) {
+            int p = phase.ordinal();
+            if (p > 0) sb.append(',');
+            sb.append('"').append(name(phase)).append("\":{\"runs\":").append(runs[p])
+              .append(",\"wallNanos\":").append(wallNanos[p]);
+            if (PhaseMetrics.CPU_SUPPORTED) sb.append(",\"cpuNanos\":").append(cpuNanos[p]);
+            if (PhaseMetrics.ALLOCATION_SUPPORTED) sb.append(",\"allocatedBytes\":").append(allocatedBytes[p]);
+            sb.append(",\"lines\":").append(lines[p])
+              .append(",\"linesPerSecond\":").append(String.format(Locale.ROOT, "%.1f", linesPerSecond(p)))
+              .append(",\"tokens\":").append(tokens[p])
+              .append(",\"symbols\":").append(symbols[p]).append('}');
+        }
+        return sb.append("}}\n").toString();
+    }
+
+    /** The totals in the Prometheus text exposition format, labelled by phase. */
+    public synchronized String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        counter(sb, "tpl_analysis_files_total", "Sources analyzed or served from the cache.");
+        sb.append("tpl_analysis_files_total ").append(files).append('\n');
+        counter(sb, "tpl_analysis_cache_hits_total", "Sources served from the cache.");
+        sb.append("tpl_analysis_cache_hits_total ").append(cacheHits).append('\n');
+        perPhase(sb, "tpl_phase_runs_total", "Times each phase ran.", runs, 1);
+        perPhase(sb, "tpl_phase_wall_seconds_total", "Wall time spent in each phase.", wallNanos, 1e-9);
+        if (PhaseMetrics.CPU_SUPPORTED) {
+            perPhase(sb, "tpl_phase_cpu_seconds_total", "CPU time of the thread running each phase.", cpuNanos, 1e-9);
+        }
+        if (PhaseMetrics.ALLOCATION_SUPPORTED) {
+            perPhase(sb, "tpl_phase_allocated_bytes_total", "Bytes allocated by the thread running each phase.", allocatedBytes, 1);
+        }
+        perPhase(sb, "tpl_phase_lines_total", "Source lines each phase covered.", lines, 1);
+        perPhase(sb, "tpl_phase_tokens_total", "Tokens each phase saw.", tokens, 1);
+        perPhase(sb, "tpl_phase_symbols_total", "Symbol table entries after each phase.", symbols, 1);
+        return sb.toString();
+    }
+
+    private double linesPerSecond(int p) {
+        return wallNanos[p] == 0 ? 0 : lines[p] * 1e9 / wallNanos[p];
+    }
+
+    private static void counter(StringBuilder sb, String name, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+    }
+
+    private static void perPhase(StringBuilder sb, String name, String help, long[] values, double scale) {
+        counter(sb, name, help);
+        for (Diagnostic.Phase phase : PHASES) {
+            long v = values[phase.ordinal()];
+            sb.append(name).append("{phase=\"").append(name(phase)).append("\"} ")
+              .append(scale == 1 ? Long.toString(v) : String.format(Locale.ROOT, "%.9f", v * scale)).append('\n');
+        }
+    }
+
+    private static String name(Diagnostic.Phase phase) {
+        return phase.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lexes a large source on a fork-join pool. The source is cut into chunks that end just
+ * after a line break, each chunk is lexed on its own with lines numbered from 1, and the
+ * tokens and diagnostics are then merged in source order with their lines shifted into
+ * place. The result is the same as {@link Lexer#lex}'s. Sources smaller than two chunks
+ * are lexed on the calling thread.
+ */
+public class ParallelLexer {
+    static final int MIN_CHUNK = 1 << 18;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final class Chunk {
+        final int from, to;
+        final TokenStream tokens;
+        final List<Diagnostic> errors;
+        int breaks;
+        boolean success;
+        int at, row, firstLine;
+
+        Chunk(CharSequence src, int from, int to, List<Diagnostic> errors) {
+            this.from = from;
+            this.to = to;
+            this.tokens = new TokenStream(src);
+            this.errors = errors;
+        }
+
+        Chunk lex(CharSequence src) {
+            Lexer lexer = new Lexer();
+            try {
+                breaks = lexer.lexLines(src, from, to, 1, tokens, errors);
+                success = lexer.isSuccess();
+            } catch (DiagnosticLimits.LimitReached e) {
+                // Merging this chunk's errors will reach the limit too, before its line count is needed.
+            }
+            return this;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int minChunk;
+    private boolean success;
+    private int lines;
+
+    public ParallelLexer(ForkJoinPool pool) {
+        this(pool, MIN_CHUNK);
+    }
+
+    ParallelLexer(ForkJoinPool pool, int minChunk) {
+        this.pool = pool;
+        this.minChunk = minChunk;
+    }
+
+    public TokenStream lex(CharSequence src, List<Diagnostic> errors, Progress progress) {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        List<Chunk> chunks = split(src, errors);
+        if (chunks.size() < 2) {
+            Lexer lexer = new Lexer();
+            TokenStream tokens = lexer.lex(src, errors, progress);
+            success = lexer.isSuccess();
+            lines = lexer.lineCount();
+            return tokens;
+        }
+
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>(chunks.size());
+        for (Chunk c : chunks) tasks.add(pool.submit(() -> c.lex(src)));
+
+        // Join in order, so each chunk's place in the merged stream is known once it is done.
+        int tokens = 0, rows = 0, line = 1;
+        int before = errors.size();
+        boolean joined = false;
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                Chunk c = Progress.join(tasks.get(i));
+                c.at = tokens;
+                c.row = rows;
+                c.firstLine = line;
+                for (Diagnostic d : c.errors) errors.add(new Diagnostic(d.phase, d.line + c.firstLine - 1, d.message));
+                tokens += c.tokens.size();
+                rows += c.tokens.lineRows();
+                line += c.breaks;
+                int total = src instanceof LineIndexed indexed ? indexed.lineCount() : (int) ((long) line * src.length() / c.to);
+                Progress.checkpoint(progress, line, total);
+            }
+            joined = true;
+        } finally {
+            if (!joined) tasks.forEach(t -> t.cancel(false));
+        }
+
+        TokenStream out = TokenStream.presized(src, tokens, rows);
+        tasks.clear();
+        for (Chunk c : chunks) {
+            tasks.add(pool.submit(() -> {
+                out.copyFrom(c.tokens, c.at, c.row, c.firstLine - 1);
+                return c;
+            }));
+        }
+        success = true;
+        lines = line;
+        for (int i = 0; i < chunks.size(); i++) {
+            success &= Progress.join(tasks.get(i)).success;
+        }
+        event.end();
+        event.commit(Diagnostic.Phase.LEXICAL, line, out.size(), errors.size() - before, success);
+        return out;
+    }
+
+    /** Cuts {@code src} into a few chunks per pool thread, each at least {@code minChunk} long. */
+    private List<Chunk> split(CharSequence src, List<Diagnostic> errors) {
+        int length = src.length();
+        int count = (int) Math.min((long) pool.getParallelism() * CHUNKS_PER_THREAD, length / Math.max(1, minChunk));
+        List<Chunk> chunks = new ArrayList<>(Math.max(1, count));
+        int from = 0;
+        for (int k = 1; k < count && from < length; k++) {
+            int target = Math.max(from, (int) ((long) length * k / count));
+            int to = target;
+            while (to < length && src.charAt(to) != '\n') to++;
+            if (to >= length - 1) break;
+            chunks.add(new Chunk(src, from, to + 1, DiagnosticLimits.newChunkList(errors)));
+            from = to + 1;
+        }
+        chunks.add(new Chunk(src, from, length, DiagnosticLimits.newChunkList(errors)));
+        return chunks;
+    }
+
+    public boolean isSuccess() { return success; }
+    /** The number of lines in the source the last {@link #lex} call tokenized. */
+    public int lineCount() { return lines; }
+}
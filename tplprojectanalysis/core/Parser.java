@@ -0,0 +1,51 @@
+import java.util.List;
+
+public class Parser {
+    private boolean success = false;
+
+    public boolean parse(TokenStream tokens, List<Diagnostic> errors) {
+        return parse(tokens, errors, Progress.NONE);
+    }
+
+    public boolean parse(TokenStream tokens, List<Diagnostic> errors, Progress progress) {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        success = true;
+        int before = errors.size();
+        int total = tokens.size() == 0 ? 0 : tokens.line(tokens.size() - 1);
+
+        int statements = 0;
+        for (int from = 0, to; from < tokens.size(); from = to) {
+            to = tokens.statementEnd(from);
+            int line = tokens.line(from);
+            if (++statements % Progress.INTERVAL == 0) Progress.checkpoint(progress, line, total);
+
+            String message = null;
+            if (tokens.kind(to - 1) != TokenKind.DELIMITER) {
+                message = "Missing semicolon";
+            } else {
+                int assign = tokens.indexOf(TokenKind.ASSIGNMENT_OPERATOR, from, to);
+                if (assign < 0) {
+                    message = "Missing assignment operator";
+                } else if (assign - from > 1) {
+                    if (assign - from != 2) {
+                        message = "Invalid declaration format";
+                    } else if (DataType.of(tokens.source(), tokens.start(from), tokens.end(from)) == null) {
+                        message = "Unknown data type";
+                    }
+                }
+            }
+
+            if (message != null) {
+                errors.add(new Diagnostic(Diagnostic.Phase.SYNTAX, line, message));
+                success = false;
+            }
+        }
+        event.end();
+        event.commit(Diagnostic.Phase.SYNTAX, total, tokens.size(), errors.size() - before, success);
+        return success;
+    }
+
+    public boolean isSuccess() { return success; }
+    public void clear() {}
+}
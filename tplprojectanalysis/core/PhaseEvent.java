@@ -0,0 +1,46 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one run of a phase over a whole source. Only runs longer than
+ * the threshold are recorded, so the per-line runs of streaming and live analysis cost no
+ * more than two clock reads each.
+ */
+@Name("tpl.Phase")
+@Label("Analysis Phase")
+@Category({ "TPL", "Analysis" })
+@Description("Lexical, syntax or semantic analysis of a source")
+@Threshold("1 ms")
+@StackTrace(false)
+final class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Lines")
+    int lines;
+
+    @Label("Tokens")
+    int tokens;
+
+    @Label("Diagnostics")
+    int diagnostics;
+
+    @Label("Success")
+    boolean success;
+
+    /** Commits the event if it ran long enough and is enabled; call after {@link #end}. */
+    void commit(Diagnostic.Phase phase, int lines, int tokens, int diagnostics, boolean success) {
+        if (!shouldCommit()) return;
+        this.phase = phase.label;
+        this.lines = lines;
+        this.tokens = tokens;
+        this.diagnostics = diagnostics;
+        this.success = success;
+        commit();
+    }
+}
@@ -0,0 +1,90 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * What one run of one phase cost: wall time, CPU time and bytes allocated, together with the
+ * lines it covered, the tokens it saw and the symbols in the table afterwards.
+ *
+ * <p>CPU time and allocation are read from {@link ThreadMXBean} for the thread that ran the
+ * phase, so work handed to a pool (see {@link Pipeline#Pipeline(java.util.concurrent.ForkJoinPool)})
+ * only shows in the wall time. They are -1 where the JVM cannot measure them.
+ */
+public final class PhaseMetrics {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATION =
+            THREADS instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported() ? t : null;
+
+    public static final boolean CPU_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+    public static final boolean ALLOCATION_SUPPORTED = ALLOCATION != null;
+
+    public final Diagnostic.Phase phase;
+    public final long wallNanos;
+    public final long cpuNanos;
+    public final long allocatedBytes;
+    public final int lines;
+    public final int tokens;
+    public final int symbols;
+
+    PhaseMetrics(Diagnostic.Phase phase, long wallNanos, long cpuNanos, long allocatedBytes, int lines, int tokens, int symbols) {
+        this.phase = phase;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.lines = lines;
+        this.tokens = tokens;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Readings taken on the current thread when a phase starts, and again at {@link #stop},
+     * so that counting what the phase produced is not part of its cost.
+     */
+    static final class Probe {
+        private long wall = System.nanoTime();
+        private long cpu = cpuTime();
+        private long allocated = allocatedBytes();
+
+        Probe stop() {
+            wall = System.nanoTime() - wall;
+            cpu = cpu < 0 ? -1 : cpuTime() - cpu;
+            allocated = allocated < 0 ? -1 : allocatedBytes() - allocated;
+            return this;
+        }
+
+        PhaseMetrics metrics(Diagnostic.Phase phase, int lines, int tokens, int symbols) {
+            return new PhaseMetrics(phase, wall, cpu, allocated, lines, tokens, symbols);
+        }
+    }
+
+    static Probe start() {
+        return new Probe();
+    }
+
+    private static long cpuTime() {
+        return CPU_SUPPORTED && THREADS.isThreadCpuTimeEnabled() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATION != null && ALLOCATION.isThreadAllocatedMemoryEnabled()
+                ? ALLOCATION.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    public double linesPerSecond() {
+        return wallNanos == 0 ? 0 : lines * 1e9 / wallNanos;
+    }
+
+    /** One line for a status bar, such as "Lexical: 12.4 ms, CPU 11.9 ms, 3.1 MB, 20,000 lines (1,612,903 lines/s), 98,000 tokens". */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(phase.label).append(": ").append(millis(wallNanos));
+        if (cpuNanos >= 0) sb.append(", CPU ").append(millis(cpuNanos));
+        if (allocatedBytes >= 0) sb.append(", ").append(String.format("%.1f MB", allocatedBytes / 1048576.0));
+        sb.append(String.format(", %,d lines (%,.0f lines/s), %,d tokens", lines, linesPerSecond(), tokens));
+        if (phase == Diagnostic.Phase.SEMANTIC) sb.append(String.format(", %,d symbols", symbols));
+        return sb.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
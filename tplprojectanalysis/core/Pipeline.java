@@ -0,0 +1,164 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Entry point to the analyzers for code that embeds them: front-ends, batch jobs and
+ * servers. Phases can be run all at once with {@link #run}, or one by one as the GUIs do.
+ * A pipeline keeps no state between sources, but it is not safe to share between threads.
+ */
+public class Pipeline {
+    /** Changes whenever the analyzers would report differently, which invalidates cached results. */
+    public static final int VERSION = 1;
+
+    private final Lexer lexer = new Lexer();
+    private final Parser parser = new Parser();
+    private final ForkJoinPool pool;
+    private final ParallelLexer parallelLexer;
+    private AnalysisCache cache;
+    private DiagnosticLimits limits = DiagnosticLimits.NONE;
+
+    public Pipeline() {
+        pool = null;
+        parallelLexer = null;
+    }
+
+    /**
+     * A pipeline that lexes and checks large sources in chunks on {@code pool}; see
+     * {@link ParallelLexer} and {@link SemanticAnalyzer#SemanticAnalyzer(ForkJoinPool)}.
+     */
+    public Pipeline(ForkJoinPool pool) {
+        this.pool = pool;
+        parallelLexer = new ParallelLexer(pool);
+    }
+
+    /**
+     * Makes {@link #lex} return the finished result of an identical source from {@code cache},
+     * and stores each result once its last phase has run. Later phases of a cached result
+     * are not run again. Pass null to stop caching.
+     */
+    public void setCache(AnalysisCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Stops analysis at the error that reaches one of {@code limits}; see
+     * {@link AnalysisResult#stoppedIn}. Results cut short are not cached, and a cached result
+     * with that many errors is analyzed again instead, so the limits apply to it.
+     */
+    public void setLimits(DiagnosticLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Runs all three phases. Syntax analysis always runs, so a line the lexer rejects for
+     * lacking '=' still gets a message. Semantic analysis only runs if both earlier phases
+     * passed.
+     */
+    public AnalysisResult run(CharSequence src) {
+        return run(src, Progress.NONE);
+    }
+
+    public AnalysisResult run(CharSequence src, Progress progress) {
+        AnalysisResult result = lex(src, progress);
+        if (result.stoppedIn() != null) return result;
+        parse(result, progress);
+        if (result.passed(Diagnostic.Phase.LEXICAL) && result.passed(Diagnostic.Phase.SYNTAX)) {
+            checkSemantics(result, progress);
+        }
+        return result;
+    }
+
+    /** Reads all of {@code in} and analyzes it. Use {@link StreamingAnalyzer} for sources too big to hold. */
+    public AnalysisResult run(Reader in) throws IOException {
+        StringBuilder src = new StringBuilder();
+        char[] buf = new char[1 << 14];
+        for (int n; (n = in.read(buf)) > 0; ) src.append(buf, 0, n);
+        return run(src);
+    }
+
+    public AnalysisResult lex(CharSequence src, Progress progress) {
+        String key = null;
+        if (cache != null) {
+            key = AnalysisCache.key(src);
+            AnalysisResult cached = cache.get(key, src);
+            if (cached != null && !limits.reachedBy(cached)) return cached;
+        }
+        List<Diagnostic> errors = limits.newList(Diagnostic.Phase.LEXICAL, 0);
+        PhaseMetrics.Probe probe = PhaseMetrics.start();
+        TokenStream tokens;
+        int lines = -1;
+        boolean success;
+        boolean stopped = false;
+        try {
+            if (parallelLexer != null) {
+                tokens = parallelLexer.lex(src, errors, progress);
+                success = parallelLexer.isSuccess();
+                lines = parallelLexer.lineCount();
+            } else {
+                tokens = lexer.lex(src, errors, progress);
+                success = lexer.isSuccess();
+                lines = lexer.lineCount();
+            }
+        } catch (DiagnosticLimits.LimitReached e) {
+            tokens = new TokenStream(src);
+            success = false;
+            stopped = true;
+        }
+        AnalysisResult result = new AnalysisResult(tokens);
+        result.lines = lines;
+        result.record(Diagnostic.Phase.LEXICAL, errors, success);
+        if (stopped) result.stop(Diagnostic.Phase.LEXICAL);
+        probe.stop();
+        result.metrics(probe.metrics(Diagnostic.Phase.LEXICAL, result.lines(), result.tokens().size(), 0));
+        result.cacheKey = key;
+        return result;
+    }
+
+    public AnalysisResult parse(AnalysisResult result, Progress progress) {
+        if (result.ran(Diagnostic.Phase.SYNTAX) || result.stoppedIn() != null) return result;
+        List<Diagnostic> errors = limits.newList(Diagnostic.Phase.SYNTAX, result.diagnostics().size());
+        PhaseMetrics.Probe probe = PhaseMetrics.start();
+        boolean success = false;
+        boolean stopped = false;
+        try {
+            success = parser.parse(result.tokens(), errors, progress);
+        } catch (DiagnosticLimits.LimitReached e) {
+            stopped = true;
+        }
+        probe.stop();
+        result.record(Diagnostic.Phase.SYNTAX, errors, success);
+        if (stopped) result.stop(Diagnostic.Phase.SYNTAX);
+        result.metrics(probe.metrics(Diagnostic.Phase.SYNTAX, result.lines(), result.tokens().size(), 0));
+        // Semantic analysis will not run after a failure, so the result is finished.
+        if (!result.passed(Diagnostic.Phase.LEXICAL) || !success) store(result);
+        return result;
+    }
+
+    public AnalysisResult checkSemantics(AnalysisResult result, Progress progress) {
+        if (result.ran(Diagnostic.Phase.SEMANTIC) || result.stoppedIn() != null) return result;
+        List<Diagnostic> errors = limits.newList(Diagnostic.Phase.SEMANTIC, result.diagnostics().size());
+        PhaseMetrics.Probe probe = PhaseMetrics.start();
+        // A fresh analyzer per run, so the result can keep its symbol table.
+        SemanticAnalyzer semantic = pool == null ? new SemanticAnalyzer() : new SemanticAnalyzer(pool);
+        boolean success = false;
+        boolean stopped = false;
+        try {
+            success = semantic.analyze(result.tokens(), errors, progress);
+        } catch (DiagnosticLimits.LimitReached e) {
+            stopped = true;
+        }
+        probe.stop();
+        result.record(Diagnostic.Phase.SEMANTIC, errors, success);
+        if (stopped) result.stop(Diagnostic.Phase.SEMANTIC);
+        else result.symbolTable(semantic.getSymbolTable());
+        result.metrics(probe.metrics(Diagnostic.Phase.SEMANTIC, result.lines(), result.tokens().size(), semantic.getSymbolTable().size()));
+        store(result);
+        return result;
+    }
+
+    private void store(AnalysisResult result) {
+        if (cache != null && result.cacheKey != null && result.stoppedIn() == null) cache.put(result.cacheKey, result);
+    }
+}
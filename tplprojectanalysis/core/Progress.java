@@ -0,0 +1,41 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Progress callback for a running phase. It is called from the thread doing the work, every
+ * {@link #INTERVAL} lines or statements.
+ */
+public interface Progress {
+    int INTERVAL = 1024;
+
+    Progress NONE = (done, total) -> {};
+
+    void update(int linesDone, int totalLines);
+
+    /**
+     * Reports progress. Throws CancellationException if the calling thread has been
+     * interrupted, which is how a cancelled SwingWorker stops a phase.
+     */
+    static void checkpoint(Progress progress, int done, int total) {
+        progress.update(done, total);
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+    }
+
+    /**
+     * Waits for a piece of a phase running on another thread. Being interrupted while waiting
+     * cancels the phase, as in {@link #checkpoint}.
+     */
+    static <T> T join(Future<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            if (e.getCause() instanceof Error err) throw err;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
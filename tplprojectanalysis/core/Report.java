@@ -0,0 +1,61 @@
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/** Writes the outcome of one phase of an {@link AnalysisResult} as the report the GUIs show. */
+public final class Report {
+
+    private Report() {}
+
+    public static void lexical(AnalysisResult result, ResultSink sink) {
+        sink.reset();
+        if (result.passed(Diagnostic.Phase.LEXICAL)) {
+            sink.append("Lexical Analysis Successful!\n\nUnique Tokens:\n\n");
+            Set<String> unique = new LinkedHashSet<>();
+            for (TokenStream.Cursor t = result.tokens().cursor(); t.next(); ) {
+                unique.add("<" + t.kind().label + "> " + t.view());
+            }
+            unique.forEach(t -> sink.append(t + "\n"));
+        } else {
+            errors(result, Diagnostic.Phase.LEXICAL, sink);
+        }
+    }
+
+    public static void syntax(AnalysisResult result, ResultSink sink) {
+        sink.reset();
+        if (result.passed(Diagnostic.Phase.SYNTAX)) {
+            sink.append("Syntax Analysis Successful!\nAll statements are grammatically correct.\n");
+        } else {
+            errors(result, Diagnostic.Phase.SYNTAX, sink);
+        }
+    }
+
+    public static void semantic(AnalysisResult result, ResultSink sink) {
+        sink.reset();
+        if (result.passed(Diagnostic.Phase.SEMANTIC)) {
+            sink.append("Semantic Analysis Successful!\n\nSymbol Table:\n\n");
+            result.symbolTable().forEach((n, t) -> sink.append(String.format("  %-15s → %s\n", n, t)));
+            sink.append("\nCompilation completed successfully!\n");
+        } else {
+            errors(result, Diagnostic.Phase.SEMANTIC, sink);
+        }
+    }
+
+    /** The summary of a result cut short by a limit, such as "Stopped after 100 errors (2 lexical, 98 syntax)." */
+    public static String stopped(AnalysisResult result) {
+        StringBuilder sb = new StringBuilder("Stopped after " + result.diagnostics().size() + " error(s) (");
+        String sep = "";
+        for (Diagnostic.Phase p : Diagnostic.Phase.values()) {
+            int n = result.diagnostics(p).size();
+            if (n == 0) continue;
+            sb.append(sep).append(n).append(' ').append(p.label.toLowerCase());
+            sep = ", ";
+        }
+        return sb.append(").").toString();
+    }
+
+    private static void errors(AnalysisResult result, Diagnostic.Phase phase, ResultSink sink) {
+        result.diagnostics(phase).forEach(d -> sink.append(d + "\n"));
+        if (result.stoppedIn() == phase) sink.append("\n" + stopped(result) + "\n");
+        sink.append("\n" + phase.label + " Analysis Failed.\n");
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * Destination for the text the analyzers produce. Implementations decide how to batch it:
+ * {@link TextAreaResultSink} coalesces it for a Swing view, {@link WriterResultSink} streams
+ * it to a file or stdout. Methods may be called from any thread.
+ */
+public interface ResultSink {
+
+    /** Starts a new result, discarding what a view is currently showing. */
+    void reset();
+
+    void append(CharSequence text);
+
+    /** Pushes anything still buffered to the destination. */
+    void flush();
+}
@@ -0,0 +1,245 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class SemanticAnalyzer {
+    static final int MIN_CHUNK = 1 << 16;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final Map<String, DataType> symbolTable = new HashMap<>();
+    private final Utils.Literal literal = new Utils.Literal();
+    private final ForkJoinPool pool;
+    private final int minChunk;
+
+    public SemanticAnalyzer() {
+        this(null, MIN_CHUNK);
+    }
+
+    /**
+     * An analyzer that checks large token streams on {@code pool}. Declarations are found
+     * first, keeping the earliest valid one of each name, and then every statement is checked
+     * against those. The diagnostics and symbol table are the same as a sequential run's.
+     */
+    public SemanticAnalyzer(ForkJoinPool pool) {
+        this(pool, MIN_CHUNK);
+    }
+
+    SemanticAnalyzer(ForkJoinPool pool, int minChunk) {
+        this.pool = pool;
+        this.minChunk = minChunk;
+    }
+
+    public boolean analyze(TokenStream tokens, List<Diagnostic> errors) {
+        return analyze(tokens, errors, Progress.NONE);
+    }
+
+    public boolean analyze(TokenStream tokens, List<Diagnostic> errors, Progress progress) {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        symbolTable.clear();
+        int before = errors.size();
+        boolean success;
+        // Two passes cost more than one, so a pool with a single thread gains nothing.
+        if (pool != null && pool.getParallelism() > 1 && tokens.size() >= 2 * minChunk) {
+            success = checkParallel(tokens, errors, progress);
+        } else {
+            success = check(tokens, errors, progress);
+        }
+        event.end();
+        int lines = tokens.size() == 0 ? 0 : tokens.line(tokens.size() - 1);
+        event.commit(Diagnostic.Phase.SEMANTIC, lines, tokens.size(), errors.size() - before, success);
+        return success;
+    }
+
+    /**
+     * Checks {@code tokens} against the symbol table built so far without clearing it first,
+     * so a source can be fed through in pieces.
+     */
+    public boolean check(TokenStream tokens, List<Diagnostic> errors) {
+        return check(tokens, errors, Progress.NONE);
+    }
+
+    private boolean check(TokenStream tokens, List<Diagnostic> errors, Progress progress) {
+        int before = errors.size();
+        int total = tokens.size() == 0 ? 0 : tokens.line(tokens.size() - 1);
+
+        int statements = 0;
+        for (int from = 0, to; from < tokens.size(); from = to) {
+            to = tokens.statementEnd(from);
+            int line = tokens.line(from);
+            if (++statements % Progress.INTERVAL == 0) Progress.checkpoint(progress, line, total);
+
+            int assign = tokens.indexOf(TokenKind.ASSIGNMENT_OPERATOR, from, to);
+            if (assign < 0) continue;
+
+            if (!tokens.literal(assign + 1, literal)) continue;
+
+            if (assign - from >= 2) {
+                DataType type = DataType.of(tokens.source(), tokens.start(from), tokens.end(from));
+                String name = tokens.text(from + 1);
+
+                if (symbolTable.containsKey(name)) {
+                    errors.add(new Diagnostic(Diagnostic.Phase.SEMANTIC, line, "Redeclaration"));
+                } else if (type == null || !type.accepts(literal)) {
+                    errors.add(new Diagnostic(Diagnostic.Phase.SEMANTIC, line, "Type mismatch"));
+                } else {
+                    symbolTable.put(name, type);
+                }
+            } else {
+                String name = assign > from ? tokens.text(from) : "";
+                DataType type = symbolTable.get(name);
+                if (type == null) {
+                    errors.add(new Diagnostic(Diagnostic.Phase.SEMANTIC, line, "Variable not declared"));
+                } else if (!type.accepts(literal)) {
+                    errors.add(new Diagnostic(Diagnostic.Phase.SEMANTIC, line, "Type mismatch"));
+                }
+            }
+        }
+        return errors.size() == before;
+    }
+
+    /** The valid declaration that puts a name in the table: the first one in the source. */
+    private static final class Definer {
+        final int statement;
+        final DataType type;
+
+        Definer(int statement, DataType type) {
+            this.statement = statement;
+            this.type = type;
+        }
+
+        static Definer first(Definer a, Definer b) {
+            return a.statement <= b.statement ? a : b;
+        }
+    }
+
+    /**
+     * The two-pass form of {@link #check}. A sequential run enters a name at its first
+     * declaration with a matching literal. Any declaration of the name before that one is a
+     * type mismatch, any after it a redeclaration, and an assignment is undeclared unless it
+     * comes after it. So once the first valid declaration of each name is known, chunks of
+     * statements can be checked independently. Statements are identified by the index of
+     * their first token.
+     */
+    private boolean checkParallel(TokenStream tokens, List<Diagnostic> errors, Progress progress) {
+        int[] bounds = split(tokens);
+        int chunks = bounds.length - 1;
+        int total = tokens.line(tokens.size() - 1);
+
+        Map<String, Definer> definers = new ConcurrentHashMap<>();
+        List<ForkJoinTask<Map<String, Definer>>> declared = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = bounds[c], to = bounds[c + 1];
+            declared.add(pool.submit(() -> declarations(tokens, from, to)));
+        }
+        List<ForkJoinTask<List<Diagnostic>>> checked = new ArrayList<>(chunks);
+        boolean done = false;
+        try {
+            for (int c = 0; c < chunks; c++) {
+                Progress.join(declared.get(c)).forEach((name, d) -> definers.merge(name, d, Definer::first));
+            }
+            for (int c = 0; c < chunks; c++) {
+                int from = bounds[c], to = bounds[c + 1];
+                checked.add(pool.submit(() -> statements(tokens, from, to, definers, DiagnosticLimits.newChunkList(errors))));
+            }
+            int before = errors.size();
+            for (int c = 0; c < chunks; c++) {
+                errors.addAll(Progress.join(checked.get(c)));
+                Progress.checkpoint(progress, tokens.line(bounds[c + 1] - 1), total);
+            }
+            done = true;
+
+            // Entered in source order, so the table iterates as a sequential run's does.
+            List<Map.Entry<String, Definer>> entries = new ArrayList<>(definers.entrySet());
+            entries.sort((a, b) -> Integer.compare(a.getValue().statement, b.getValue().statement));
+            for (Map.Entry<String, Definer> e : entries) symbolTable.put(e.getKey(), e.getValue().type);
+            return errors.size() == before;
+        } finally {
+            if (!done) {
+                declared.forEach(t -> t.cancel(false));
+                checked.forEach(t -> t.cancel(false));
+            }
+        }
+    }
+
+    /** Cuts the token stream into a few chunks per pool thread, each starting a statement. */
+    private int[] split(TokenStream tokens) {
+        int size = tokens.size();
+        int count = (int) Math.max(1, Math.min((long) pool.getParallelism() * CHUNKS_PER_THREAD, size / minChunk));
+        int[] bounds = new int[count + 1];
+        int n = 0;
+        for (int k = 1; k < count; k++) {
+            int target = (int) ((long) size * k / count);
+            if (target <= bounds[n]) continue;
+            int start = tokens.statementEnd(target - 1);
+            if (start >= size) break;
+            if (start > bounds[n]) bounds[++n] = start;
+        }
+        bounds[++n] = size;
+        return Arrays.copyOf(bounds, n + 1);
+    }
+
+    /** First pass: the first valid declaration of each name in the statements of [from, to). */
+    private static Map<String, Definer> declarations(TokenStream tokens, int from, int to) {
+        Map<String, Definer> found = new HashMap<>();
+        Utils.Literal literal = new Utils.Literal();
+        for (int s = from, e; s < to; s = e) {
+            e = tokens.statementEnd(s);
+            int assign = tokens.indexOf(TokenKind.ASSIGNMENT_OPERATOR, s, e);
+            if (assign - s < 2) continue;
+            if (!tokens.literal(assign + 1, literal)) continue;
+            DataType type = DataType.of(tokens.source(), tokens.start(s), tokens.end(s));
+            if (type != null && type.accepts(literal)) found.putIfAbsent(tokens.text(s + 1), new Definer(s, type));
+        }
+        return found;
+    }
+
+    /**
+     * Second pass: the diagnostics of the statements in [from, to), given every name's definer.
+     * They are added to {@code errors}, which may stop the pass early if it is bounded.
+     */
+    private static List<Diagnostic> statements(TokenStream tokens, int from, int to, Map<String, Definer> definers,
+                                               List<Diagnostic> errors) {
+        try {
+            checkChunk(tokens, from, to, definers, errors);
+        } catch (DiagnosticLimits.LimitReached e) {
+            // Adding these to the phase's list will reach the limit as well.
+        }
+        return errors;
+    }
+
+    private static void checkChunk(TokenStream tokens, int from, int to, Map<String, Definer> definers, List<Diagnostic> errors) {
+        Utils.Literal literal = new Utils.Literal();
+        for (int s = from, e; s < to; s = e) {
+            e = tokens.statementEnd(s);
+            int assign = tokens.indexOf(TokenKind.ASSIGNMENT_OPERATOR, s, e);
+            if (assign < 0) continue;
+            if (!tokens.literal(assign + 1, literal)) continue;
+
+            int line = tokens.line(s);
+            if (assign - s >= 2) {
+                Definer d = definers.get(tokens.text(s + 1));
+                if (d != null && d.statement < s) {
+                    errors.add(new Diagnostic(Diagnostic.Phase.SEMANTIC, line, "Redeclaration"));
+                } else if (d == null || d.statement > s) {
+                    errors.add(new Diagnostic(Diagnostic.Phase.SEMANTIC, line, "Type mismatch"));
+                }
+            } else {
+                Definer d = assign > s ? definers.get(tokens.text(s)) : null;
+                if (d == null || d.statement > s) {
+                    errors.add(new Diagnostic(Diagnostic.Phase.SEMANTIC, line, "Variable not declared"));
+                } else if (!d.type.accepts(literal)) {
+                    errors.add(new Diagnostic(Diagnostic.Phase.SEMANTIC, line, "Type mismatch"));
+                }
+            }
+        }
+    }
+
+    public Map<String, DataType> getSymbolTable() { return symbolTable; }
+    public void clear() { symbolTable.clear(); }
+}
@@ -0,0 +1,51 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a single statement that took longer than the threshold to lex,
+ * which usually means a pathological literal. It carries the line and the start of the
+ * literal. Lexing is linear, so only statements of {@link #MIN_LENGTH} or more characters are
+ * timed; a shorter one takes microseconds, and timing every statement would not be cheap.
+ */
+@Name("tpl.SlowStatement")
+@Label("Slow Statement")
+@Category({ "TPL", "Analysis" })
+@Description("A statement whose analysis took longer than the threshold")
+@Threshold("1 ms")
+@StackTrace(false)
+final class SlowStatementEvent extends Event {
+    static final int MIN_LENGTH = 1024;
+    private static final int MAX_LITERAL = 256;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Line")
+    int line;
+
+    @Label("Length")
+    @Description("Length of the statement in characters")
+    int length;
+
+    @Label("Literal")
+    @Description("The right-hand side of the statement, cut to " + MAX_LITERAL + " characters")
+    String literal;
+
+    /** Commits the event if the statement in {@code src[from, to)} was slow; call after {@link #end}. */
+    void commit(Diagnostic.Phase phase, int line, CharSequence src, int from, int to) {
+        if (!shouldCommit()) return;
+        this.phase = phase.label;
+        this.line = line;
+        this.length = to - from;
+        int eq = from;
+        while (eq < to && src.charAt(eq) != '=') eq++;
+        int start = eq < to ? eq + 1 : from;
+        this.literal = src.subSequence(start, Math.min(to, start + MAX_LITERAL)).toString().trim();
+        commit();
+    }
+}
@@ -0,0 +1,64 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs all three phases one line at a time so that only the current line's tokens and the
+ * symbol table are kept in memory. This lets sources far bigger than the heap be checked.
+ *
+ * <p>Diagnostics come out in line order, each line's lexical and syntax errors first. A line
+ * gets a semantic check only if it lexed and parsed cleanly. The whole-file mode is different:
+ * there, semantic analysis is skipped for the entire file after any earlier error.
+ */
+public class StreamingAnalyzer {
+    private final Lexer lexer = new Lexer();
+    private final Parser parser = new Parser();
+    private final SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer();
+    private final TokenStream tokens = new TokenStream("");
+    private final List<Diagnostic> pending = new ArrayList<>();
+    private final Consumer<Diagnostic> sink;
+
+    private int line;
+    private boolean success = true;
+
+    public StreamingAnalyzer(Consumer<Diagnostic> sink) {
+        this.sink = sink;
+    }
+
+    /** Analyzes the next line of the source. The text is not retained after this returns. */
+    public void feedLine(CharSequence text) {
+        line++;
+        tokens.reset(text);
+        boolean lexed = lexer.lexLine(text, 0, text.length(), line, tokens, pending);
+        boolean parsed = parser.parse(tokens, pending);
+        if (lexed && parsed) semanticAnalyzer.check(tokens, pending);
+
+        if (!pending.isEmpty()) {
+            success = false;
+            pending.forEach(sink);
+            pending.clear();
+        }
+    }
+
+    public boolean isSuccess() { return success; }
+    public int linesAnalyzed() { return line; }
+
+    public static boolean analyze(Path path, Consumer<Diagnostic> sink) throws IOException {
+        StreamingAnalyzer analyzer = new StreamingAnalyzer(sink);
+        try (MappedLineReader reader = new MappedLineReader(path)) {
+            while (reader.next()) analyzer.feedLine(reader.line());
+        }
+        return analyzer.isSuccess();
+    }
+
+    public static boolean analyze(Reader in, Consumer<Diagnostic> sink) throws IOException {
+        StreamingAnalyzer analyzer = new StreamingAnalyzer(sink);
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        for (String text; (text = reader.readLine()) != null; ) analyzer.feedLine(text);
+        return analyzer.isSuccess();
+    }
+}
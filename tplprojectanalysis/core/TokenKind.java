@@ -0,0 +1,16 @@
+public enum TokenKind {
+    DATA_TYPE("data_type"),
+    IDENTIFIER("identifier"),
+    ASSIGNMENT_OPERATOR("assignment_operator"),
+    VALUE("value"),
+    DELIMITER("delimiter");
+
+    private static final TokenKind[] VALUES = values();
+
+    public final String label;
+
+    TokenKind(String label) { this.label = label; }
+
+    /** Inverse of {@code (byte) ordinal()}, as stored by {@link TokenStream}. */
+    static TokenKind of(byte ordinal) { return VALUES[ordinal]; }
+}
@@ -0,0 +1,247 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Tokens produced by {@link Lexer}, in source order. Tokens are stored in parallel arrays
+ * (kind, start, length and line) rather than as objects. Token text is not copied: it is
+ * read back from the source through the token's span. For a value token, what the lexer made
+ * of its literal is kept as well, so later phases do not scan it again.
+ *
+ * <p>Columns are not stored per token. They come from a table holding the start offset of
+ * each line that has tokens.
+ */
+public class TokenStream {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final DataType[] TYPES = DataType.values();
+    // Literal codes: not recorded, not a valid literal, or else 1 + (type ordinal << 3 | range).
+    private static final byte UNSCANNED = 0;
+    private static final byte INVALID = -1;
+
+    private CharSequence source;
+    private int size;
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private byte[] literals = new byte[INITIAL_CAPACITY];
+
+    // Line numbers that have tokens, in increasing order, and where each of those lines starts.
+    private int lineCount;
+    private int[] tableLines = new int[INITIAL_CAPACITY];
+    private int[] tableStarts = new int[INITIAL_CAPACITY];
+
+    public TokenStream(CharSequence source) {
+        this.source = source;
+    }
+
+    /** Empties the stream and points it at a new source, so one instance can be reused per line. */
+    public void reset(CharSequence source) {
+        this.source = source;
+        size = 0;
+        lineCount = 0;
+    }
+
+    /** Appends a token on {@code line}, which starts at offset {@code lineStart} of the source. */
+    public void add(TokenKind kind, int start, int end, int line, int lineStart) {
+        if (size == kinds.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, 2 * size);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            literals = Arrays.copyOf(literals, capacity);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        starts[size] = start;
+        lengths[size] = end - start;
+        lines[size] = line;
+        literals[size] = UNSCANNED;
+        size++;
+
+        if (lineCount == 0 || tableLines[lineCount - 1] != line) {
+            if (lineCount == tableLines.length) {
+                tableLines = Arrays.copyOf(tableLines, Math.max(INITIAL_CAPACITY, 2 * lineCount));
+                tableStarts = Arrays.copyOf(tableStarts, Math.max(INITIAL_CAPACITY, 2 * lineCount));
+            }
+            tableLines[lineCount] = line;
+            tableStarts[lineCount] = lineStart;
+            lineCount++;
+        }
+    }
+
+    /**
+     * Creates a stream with exactly {@code tokens} tokens on {@code lines} lines, to be filled
+     * by {@link #copyFrom}.
+     */
+    static TokenStream presized(CharSequence source, int tokens, int lines) {
+        TokenStream s = new TokenStream(source);
+        s.kinds = new byte[tokens];
+        s.starts = new int[tokens];
+        s.lengths = new int[tokens];
+        s.lines = new int[tokens];
+        s.literals = new byte[tokens];
+        s.tableLines = new int[lines];
+        s.tableStarts = new int[lines];
+        s.size = tokens;
+        s.lineCount = lines;
+        return s;
+    }
+
+    /**
+     * Copies all of {@code chunk} to token index {@code at} and line table row {@code row},
+     * adding {@code lineShift} to its line numbers. Chunks that go to different places may be
+     * copied from different threads.
+     */
+    void copyFrom(TokenStream chunk, int at, int row, int lineShift) {
+        int n = chunk.size;
+        System.arraycopy(chunk.kinds, 0, kinds, at, n);
+        System.arraycopy(chunk.starts, 0, starts, at, n);
+        System.arraycopy(chunk.lengths, 0, lengths, at, n);
+        for (int i = 0; i < n; i++) lines[at + i] = chunk.lines[i] + lineShift;
+        System.arraycopy(chunk.literals, 0, literals, at, n);
+        System.arraycopy(chunk.tableStarts, 0, tableStarts, row, chunk.lineCount);
+        for (int i = 0; i < chunk.lineCount; i++) tableLines[row + i] = chunk.tableLines[i] + lineShift;
+    }
+
+    int lineRows() { return lineCount; }
+
+    /** Writes the tokens and line table compactly, as deltas, for {@link AnalysisCache}. */
+    void writeTo(DataOutput out) throws IOException {
+        AnalysisCache.writeVarint(out, size);
+        out.write(kinds, 0, size);
+        for (int i = 0, prev = 0; i < size; prev = starts[i++]) AnalysisCache.writeVarint(out, starts[i] - prev);
+        for (int i = 0; i < size; i++) AnalysisCache.writeVarint(out, lengths[i]);
+        for (int i = 0, prev = 0; i < size; prev = lines[i++]) AnalysisCache.writeVarint(out, lines[i] - prev);
+        out.write(literals, 0, size);
+        AnalysisCache.writeVarint(out, lineCount);
+        for (int i = 0, prev = 0; i < lineCount; prev = tableLines[i++]) AnalysisCache.writeVarint(out, tableLines[i] - prev);
+        for (int i = 0, prev = 0; i < lineCount; prev = tableStarts[i++]) AnalysisCache.writeVarint(out, tableStarts[i] - prev);
+    }
+
+    /** Reads tokens written by {@link #writeTo} for {@code source}. */
+    static TokenStream readFrom(DataInput in, CharSequence source) throws IOException {
+        TokenStream s = new TokenStream(source);
+        int n = s.size = AnalysisCache.readVarint(in);
+        if (n < 0 || n > source.length()) throw new IOException("Bad token count");
+        s.kinds = new byte[n];
+        s.starts = new int[n];
+        s.lengths = new int[n];
+        s.lines = new int[n];
+        s.literals = new byte[n];
+        in.readFully(s.kinds);
+        for (int i = 0, prev = 0; i < n; i++) s.starts[i] = prev += AnalysisCache.readVarint(in);
+        for (int i = 0; i < n; i++) s.lengths[i] = AnalysisCache.readVarint(in);
+        for (int i = 0, prev = 0; i < n; i++) s.lines[i] = prev += AnalysisCache.readVarint(in);
+        in.readFully(s.literals);
+        int rows = s.lineCount = AnalysisCache.readVarint(in);
+        if (rows < 0 || rows > n) throw new IOException("Bad line count");
+        s.tableLines = new int[rows];
+        s.tableStarts = new int[rows];
+        for (int i = 0, prev = 0; i < rows; i++) s.tableLines[i] = prev += AnalysisCache.readVarint(in);
+        for (int i = 0, prev = 0; i < rows; i++) s.tableStarts[i] = prev += AnalysisCache.readVarint(in);
+        return s;
+    }
+
+    /** Drops unused capacity once no more tokens will be added. */
+    public void trimToSize() {
+        kinds = Arrays.copyOf(kinds, size);
+        starts = Arrays.copyOf(starts, size);
+        lengths = Arrays.copyOf(lengths, size);
+        lines = Arrays.copyOf(lines, size);
+        literals = Arrays.copyOf(literals, size);
+        tableLines = Arrays.copyOf(tableLines, lineCount);
+        tableStarts = Arrays.copyOf(tableStarts, lineCount);
+    }
+
+    public CharSequence source() { return source; }
+    public int size() { return size; }
+
+    public TokenKind kind(int i) { return TokenKind.of(kinds[i]); }
+    public int start(int i) { return starts[i]; }
+    public int end(int i) { return starts[i] + lengths[i]; }
+    public int length(int i) { return lengths[i]; }
+    public int line(int i) { return lines[i]; }
+
+    public int column(int i) {
+        int row = Arrays.binarySearch(tableLines, 0, lineCount, lines[i]);
+        return starts[i] - tableStarts[row] + 1;
+    }
+
+    /**
+     * Records what {@link Utils#scanLiteral} made of token {@code i}'s text: whether it is a
+     * valid literal and, if so, the type and range in {@code lit}.
+     */
+    public void setLiteral(int i, boolean valid, Utils.Literal lit) {
+        literals[i] = valid ? (byte) (1 + (lit.type.ordinal() << 3 | lit.range)) : INVALID;
+    }
+
+    /**
+     * Fills in {@code out} as {@link Utils#scanLiteral} would for token {@code i}, from what
+     * was recorded by {@link #setLiteral}, and returns whether it is a valid literal. The
+     * value of an integral literal is not kept; it is left 0. A token with nothing recorded
+     * is scanned.
+     */
+    public boolean literal(int i, Utils.Literal out) {
+        int code = literals[i];
+        if (code == UNSCANNED) return Utils.scanLiteral(source, starts[i], starts[i] + lengths[i], out);
+        out.value = 0;
+        if (code == INVALID) {
+            out.type = null;
+            out.range = Utils.RANGE_NONE;
+            return false;
+        }
+        out.type = TYPES[(code - 1) >> 3];
+        out.range = (code - 1) & 7;
+        return true;
+    }
+
+    /** Copies the token's text. Use {@link #view} when the text is only read. */
+    public String text(int i) {
+        return source.subSequence(starts[i], starts[i] + lengths[i]).toString();
+    }
+
+    /** The token's text as a read-only view of the source, without copying it. */
+    public CharSequence view(int i) {
+        return CharBuffer.wrap(source, starts[i], starts[i] + lengths[i]);
+    }
+
+    /** Index just past the last token on the same line as token {@code from}. */
+    public int statementEnd(int from) {
+        int line = lines[from];
+        int i = from + 1;
+        while (i < size && lines[i] == line) i++;
+        return i;
+    }
+
+    /** Index of the first token of the given kind in [from, to), or -1. */
+    public int indexOf(TokenKind kind, int from, int to) {
+        byte k = (byte) kind.ordinal();
+        for (int i = from; i < to; i++) {
+            if (kinds[i] == k) return i;
+        }
+        return -1;
+    }
+
+    public Cursor cursor() { return new Cursor(); }
+
+    /**
+     * Walks the stream one token at a time. Call {@link #next()} first; the accessors then
+     * read the current token.
+     */
+    public final class Cursor {
+        private int index = -1;
+
+        public boolean next() { return ++index < size; }
+        public int index() { return index; }
+        public TokenKind kind() { return TokenStream.this.kind(index); }
+        public int start() { return starts[index]; }
+        public int end() { return TokenStream.this.end(index); }
+        public int line() { return lines[index]; }
+        public int column() { return TokenStream.this.column(index); }
+        public CharSequence view() { return TokenStream.this.view(index); }
+        public String text() { return TokenStream.this.text(index); }
+    }
+}
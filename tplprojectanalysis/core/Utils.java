@@ -0,0 +1,233 @@
+public class Utils {
+
+    // Narrowing range of an integral literal, ordered so that "fits in X" is range <= RANGE_X.
+    public static final int RANGE_BYTE  = 0;
+    public static final int RANGE_SHORT = 1;
+    public static final int RANGE_INT   = 2;
+    public static final int RANGE_LONG  = 3;
+    public static final int RANGE_NONE  = 4;
+
+    private static final String ESCAPES = "btnfr\"'\\";
+
+    /**
+     * Result of {@link #scanLiteral}. Callers keep one instance and reuse it for every
+     * literal, so scanning allocates nothing.
+     */
+    public static final class Literal {
+        public DataType type;
+        public long value;
+        public int range = RANGE_NONE;
+    }
+
+    public static String classifyValue(String v) {
+        Literal lit = new Literal();
+        return scanLiteral(v, 0, v.length(), lit) ? lit.type.keyword : null;
+    }
+
+    /**
+     * Classifies the literal in {@code s[from, to)} in a single pass. On success fills in the
+     * type, and for int/long literals also the parsed value and its narrowing range.
+     */
+    public static boolean scanLiteral(CharSequence s, int from, int to, Literal out) {
+        out.type = null;
+        out.value = 0;
+        out.range = RANGE_NONE;
+
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        int len = to - from;
+        if (len == 0) return false;
+
+        char first = s.charAt(from);
+        char last = s.charAt(to - 1);
+
+        if (first == '"') {
+            if (len < 2 || last != '"' || !isValidStringContent(s, from + 1, to - 1)) return false;
+            out.type = DataType.STRING;
+            return true;
+        }
+
+        if (first == '\'') {
+            if (len < 3 || last != '\'') return false;
+            int n = len - 2;
+            if (n == 1 || (n == 2 && s.charAt(from + 1) == '\\' && ESCAPES.indexOf(s.charAt(from + 2)) != -1)) {
+                out.type = DataType.CHAR;
+                return true;
+            }
+            return false;
+        }
+
+        if (first == 't' || first == 'f') {
+            if (regionEquals(s, from, to, "true") || regionEquals(s, from, to, "false")) {
+                out.type = DataType.BOOLEAN;
+                return true;
+            }
+            return false;
+        }
+
+        return scanNumber(s, from, to, out);
+    }
+
+    private static boolean scanNumber(CharSequence s, int from, int to, Literal out) {
+        int i = from;
+        boolean negative = s.charAt(i) == '-';
+        if (negative) i++;
+
+        // Accumulate negatively so Long.MIN_VALUE is representable.
+        long acc = 0;
+        boolean overflow = false;
+        int intStart = i;
+        while (i < to) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) break;
+            if (!overflow) {
+                if (acc < Long.MIN_VALUE / 10) overflow = true;
+                else {
+                    acc *= 10;
+                    if (acc < Long.MIN_VALUE + d) overflow = true;
+                    else acc -= d;
+                }
+            }
+            i++;
+        }
+        int intDigits = i - intStart;
+
+        boolean dot = false;
+        int fracDigits = 0;
+        if (i < to && s.charAt(i) == '.') {
+            dot = true;
+            int fracStart = ++i;
+            while (i < to && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+            fracDigits = i - fracStart;
+        }
+
+        char suffix = 0;
+        if (i < to) suffix = s.charAt(i++);
+        if (i != to || intDigits + fracDigits == 0) return false;
+
+        switch (suffix) {
+            case 0:
+                if (dot) {
+                    out.type = DataType.DOUBLE;
+                    return true;
+                }
+                out.type = DataType.INT;
+                break;
+            case 'l': case 'L':
+                if (dot) return false;
+                out.type = DataType.LONG;
+                break;
+            case 'f': case 'F':
+                out.type = DataType.FLOAT;
+                return true;
+            case 'd': case 'D':
+                out.type = DataType.DOUBLE;
+                return true;
+            default:
+                return false;
+        }
+
+        if (!negative) {
+            if (acc == Long.MIN_VALUE) overflow = true;
+            acc = -acc;
+        }
+        if (!overflow) {
+            out.value = acc;
+            out.range = acc >= Byte.MIN_VALUE && acc <= Byte.MAX_VALUE ? RANGE_BYTE
+                      : acc >= Short.MIN_VALUE && acc <= Short.MAX_VALUE ? RANGE_SHORT
+                      : acc >= Integer.MIN_VALUE && acc <= Integer.MAX_VALUE ? RANGE_INT
+                      : RANGE_LONG;
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(CharSequence s, int from, int to, String word) {
+        if (to - from != word.length()) return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (s.charAt(from + i) != word.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public static boolean isValidStringContent(String s) {
+        return isValidStringContent(s, 0, s.length());
+    }
+
+    public static boolean isValidStringContent(CharSequence s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == '\\') {
+                if (i + 1 >= to) return false;
+                if (ESCAPES.indexOf(s.charAt(i + 1)) == -1) return false;
+                i++;
+            }
+        }
+        return true;
+    }
+
+    public static boolean isValidEscape(String s) {
+        return s.length() == 1 || (s.length() == 2 && s.charAt(0) == '\\' && ESCAPES.indexOf(s.charAt(1)) != -1);
+    }
+
+    /**
+     * Whether the value of a literal {@code type} accepts, as scanned into {@code lit}, can be
+     * held by that type. Only integral literals can be too big; the checker does not look at
+     * an int or long literal's value unless it narrows it.
+     */
+    public static boolean fits(Literal lit, DataType type) {
+        if (lit.type != DataType.INT && lit.type != DataType.LONG) return true;
+        return lit.range <= (type == DataType.LONG || type == DataType.FLOAT || type == DataType.DOUBLE ? RANGE_LONG : RANGE_INT);
+    }
+
+    /** The value of the literal {@code s[from, to)}, scanned into {@code lit}, assigned to a float. */
+    public static float floatValue(CharSequence s, int from, int to, Literal lit) {
+        return lit.type == DataType.FLOAT ? Float.parseFloat(s.subSequence(from, to).toString()) : (float) lit.value;
+    }
+
+    /** The value of the literal {@code s[from, to)}, scanned into {@code lit}, assigned to a double. */
+    public static double doubleValue(CharSequence s, int from, int to, Literal lit) {
+        if (lit.type == DataType.DOUBLE) return Double.parseDouble(s.subSequence(from, to).toString());
+        if (lit.type == DataType.FLOAT) return Float.parseFloat(s.subSequence(from, to).toString());
+        return lit.value;
+    }
+
+    /** The char that {@code s[from, to)}, the inside of a char literal, stands for. */
+    public static char charValue(CharSequence s, int from, int to) {
+        return to - from == 1 ? s.charAt(from) : unescape(s.charAt(from + 1));
+    }
+
+    /** The contents of the string literal whose inside is {@code s[from, to)}. */
+    public static String stringValue(CharSequence s, int from, int to) {
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            sb.append(c == '\\' ? unescape(s.charAt(++i)) : c);
+        }
+        return sb.toString();
+    }
+
+    private static char unescape(char c) {
+        return switch (c) {
+            case 'b' -> '\b';
+            case 't' -> '\t';
+            case 'n' -> '\n';
+            case 'f' -> '\f';
+            case 'r' -> '\r';
+            default -> c;
+        };
+    }
+
+    public static boolean isValidId(CharSequence s) {
+        return s != null && isValidId(s, 0, s.length());
+    }
+
+    public static boolean isValidId(CharSequence s, int from, int to) {
+        if (from >= to) return false;
+        char c = s.charAt(from);
+        if (!(c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) return false;
+        for (int i = from + 1; i < to; i++) {
+            c = s.charAt(i);
+            if (!(c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Streams result text straight to a file or stdout through a 64 KB buffer. */
+public class WriterResultSink implements ResultSink, Closeable {
+    private final Writer out;
+
+    public WriterResultSink(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16);
+    }
+
+    public static WriterResultSink stdout() {
+        return new WriterResultSink(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    }
+
+    public static WriterResultSink toFile(Path path) throws IOException {
+        return new WriterResultSink(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    /** A stream has nothing to clear; results simply follow one another. */
+    @Override
+    public void reset() {}
+
+    @Override
+    public synchronized void append(CharSequence text) {
+        try {
+            out.append(text);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}